@@ -0,0 +1,392 @@
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.geometry.Insets;
+import javafx.scene.Node;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.VBox;
+import javafx.scene.text.Font;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Retained-mode calendar: every month, week and day node is created once and
+// re-targeted on navigation. A cell only touches its children when the date
+// or the tasks it shows have actually changed.
+public class CalendarRenderer {
+    private static final String[] WEEKDAYS = {"Su", "Mo", "Tu", "We", "Th", "Fr", "Sa"};
+    private static final String[] DAY_NUMBERS = new String[32];
+    private static final String[] HOUR_LABELS = new String[24];
+    private static final int ALL_DAY = -1;
+
+    // Heatmap fills, indexed by heatStyle(): five density levels for each of three
+    // priority mixes (mostly high, mixed, mostly low). Built once so cells never format styles.
+    private static final int[][] HEAT_RGB = {{229, 57, 53}, {251, 140, 0}, {67, 160, 71}};
+    private static final double[] HEAT_ALPHA = {0.15, 0.3, 0.45, 0.6, 0.75};
+    private static final String[] CELL_STYLES = new String[HEAT_RGB.length * HEAT_ALPHA.length + 1];
+    private static final String[] MINI_STYLES = new String[CELL_STYLES.length];
+    private static final int NO_HEAT = CELL_STYLES.length - 1;
+
+    static {
+        for (int d = 1; d < DAY_NUMBERS.length; d++) {
+            DAY_NUMBERS[d] = String.valueOf(d);
+        }
+        for (int mix = 0; mix < HEAT_RGB.length; mix++) {
+            for (int level = 0; level < HEAT_ALPHA.length; level++) {
+                String fill = String.format("rgba(%d, %d, %d, %.2f)",
+                        HEAT_RGB[mix][0], HEAT_RGB[mix][1], HEAT_RGB[mix][2], HEAT_ALPHA[level]);
+                CELL_STYLES[mix * HEAT_ALPHA.length + level] = "-fx-border-color: #ccc; -fx-background-color: " + fill + ";";
+                MINI_STYLES[mix * HEAT_ALPHA.length + level] = "-fx-background-color: " + fill + ";";
+            }
+        }
+        CELL_STYLES[NO_HEAT] = "-fx-border-color: #ccc;";
+        MINI_STYLES[NO_HEAT] = "-fx-background-color: #eeeeee;";
+        for (int h = 0; h < 24; h++) {
+            HOUR_LABELS[h] = String.format("%02d:00", h);
+        }
+    }
+
+    private final PlannerService planner;
+    private final Consumer<LocalDate> onDateSelected;
+    private final Consumer<YearMonth> onMonthSelected;
+
+    private final GridPane monthGrid = new GridPane();
+    private final MonthCell[] monthCells = new MonthCell[42];
+
+    private final VBox weekBox = new VBox(10);
+    private final WeekCell[] weekCells = new WeekCell[7];
+
+    private final ObservableList<HourSlot> hourSlots = FXCollections.observableArrayList();
+    private final ListView<HourSlot> dayList = new ListView<>(hourSlots);
+
+    private GridPane yearGrid; // built on first use
+    private final MiniMonth[] miniMonths = new MiniMonth[12];
+
+    public CalendarRenderer(PlannerService planner, Consumer<LocalDate> onDateSelected,
+                            Consumer<YearMonth> onMonthSelected) {
+        this.planner = planner;
+        this.onDateSelected = onDateSelected;
+        this.onMonthSelected = onMonthSelected;
+
+        monthGrid.setHgap(5);
+        monthGrid.setVgap(5);
+        monthGrid.setPadding(new Insets(10));
+        for (int i = 0; i < WEEKDAYS.length; i++) {
+            Label day = new Label(WEEKDAYS[i]);
+            day.setFont(Font.font(12));
+            monthGrid.add(day, i, 0);
+        }
+        for (int i = 0; i < monthCells.length; i++) {
+            monthCells[i] = new MonthCell();
+            monthGrid.add(monthCells[i], i % 7, 1 + i / 7);
+        }
+
+        for (int i = 0; i < weekCells.length; i++) {
+            weekCells[i] = new WeekCell();
+            weekBox.getChildren().add(weekCells[i]);
+        }
+
+        hourSlots.add(new HourSlot(ALL_DAY, Collections.emptyList(), Collections.emptyList()));
+        for (int h = 0; h < 24; h++) {
+            hourSlots.add(new HourSlot(h, Collections.emptyList(), Collections.emptyList()));
+        }
+        dayList.setCellFactory(list -> new HourCell());
+    }
+
+    public Node renderMonth(YearMonth month) {
+        LocalDate firstDay = month.atDay(1);
+        int offset = firstDay.getDayOfWeek().getValue() % 7;
+        int daysInMonth = month.lengthOfMonth();
+        OccupancyIndex.MonthStats stats = planner.monthStats(month);
+        for (int i = 0; i < monthCells.length; i++) {
+            int day = i - offset + 1;
+            if (day < 1 || day > daysInMonth) {
+                monthCells[i].clear();
+            } else {
+                LocalDate date = firstDay.plusDays(day - 1);
+                monthCells[i].show(date, stats.count(day), heatStyle(stats, day));
+            }
+        }
+        return monthGrid;
+    }
+
+    // Twelve small heatmaps; each month is one stats lookup.
+    public Node renderYear(int year) {
+        if (yearGrid == null) {
+            yearGrid = new GridPane();
+            yearGrid.setHgap(15);
+            yearGrid.setVgap(15);
+            yearGrid.setPadding(new Insets(10));
+            for (int m = 0; m < miniMonths.length; m++) {
+                miniMonths[m] = new MiniMonth();
+                yearGrid.add(miniMonths[m], m % 4, m / 4);
+            }
+        }
+        for (int m = 0; m < miniMonths.length; m++) {
+            YearMonth month = YearMonth.of(year, m + 1);
+            miniMonths[m].show(month, planner.monthStats(month));
+        }
+        return yearGrid;
+    }
+
+    // Density level from the day's task count, hue from its priority mix.
+    private static int heatStyle(OccupancyIndex.MonthStats stats, int day) {
+        int count = stats.count(day);
+        if (count == 0) {
+            return NO_HEAT;
+        }
+        int level = Math.min(HEAT_ALPHA.length - 1, 31 - Integer.numberOfLeadingZeros(count));
+        int mix = stats.high(day) * 2 >= count ? 0 : stats.low(day) * 2 > count ? 2 : 1;
+        return mix * HEAT_ALPHA.length + level;
+    }
+
+    public Node renderWeek(LocalDate baseDate) {
+        LocalDate start = baseDate.with(DayOfWeek.MONDAY);
+        for (int i = 0; i < weekCells.length; i++) {
+            LocalDate date = start.plusDays(i);
+            weekCells[i].show(date, planner.scheduleOn(date));
+        }
+        return weekBox;
+    }
+
+    // Slot 0 holds the all-day tasks; slot h + 1 every timed task overlapping hour h,
+    // so a task that runs across several hours is listed in each of them.
+    public Node renderDay(LocalDate date) {
+        updateSlot(0, ALL_DAY, planner.allDayTasksOn(date));
+        for (int h = 0; h < 24; h++) {
+            updateSlot(h + 1, h, planner.tasksOverlapping(date, h * 60, (h + 1) * 60));
+        }
+        return dayList;
+    }
+
+    // Replacing only changed slots lets the ListView update just those cells. A
+    // slot has changed when it holds other tasks or when a task it holds now reads
+    // differently, after a rename, a new time, an undo or a synced edit.
+    private void updateSlot(int index, int hour, List<Task> tasks) {
+        HourSlot slot = hourSlots.get(index);
+        List<String> labels = describeAll(tasks);
+        if (!slot.tasks.equals(tasks) || !slot.labels.equals(labels)) {
+            hourSlots.set(index, new HourSlot(hour, tasks, labels));
+        }
+    }
+
+    private static List<String> describeAll(List<Task> tasks) {
+        if (tasks.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> labels = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            labels.add(describe(task));
+        }
+        return labels;
+    }
+
+    private static String describe(Task task) {
+        LocalTime time = task.getTime();
+        return time == null ? "- " + task.getName() : time + " " + task.getName();
+    }
+
+    private final class MonthCell extends VBox {
+        private final Label dateLabel = new Label();
+        private final Label countLabel = new Label();
+        private LocalDate date;
+        private int count;
+        private int style = NO_HEAT;
+
+        MonthCell() {
+            setPadding(new Insets(4));
+            setStyle(CELL_STYLES[NO_HEAT]);
+            getChildren().addAll(dateLabel, countLabel);
+            countLabel.setFont(Font.font(10));
+            setVisible(false);
+            setOnMouseClicked(e -> {
+                if (date != null) {
+                    onDateSelected.accept(date);
+                }
+            });
+        }
+
+        void show(LocalDate newDate, int newCount, int newStyle) {
+            if (date == null) {
+                setVisible(true);
+            }
+            if (date == null || date.getDayOfMonth() != newDate.getDayOfMonth()) {
+                dateLabel.setText(DAY_NUMBERS[newDate.getDayOfMonth()]);
+            }
+            date = newDate;
+            if (count != newCount) {
+                count = newCount;
+                countLabel.setText(newCount == 0 ? "" : newCount < DAY_NUMBERS.length ? DAY_NUMBERS[newCount] : "31+");
+            }
+            if (style != newStyle) {
+                style = newStyle;
+                setStyle(CELL_STYLES[newStyle]);
+            }
+        }
+
+        void clear() {
+            if (date != null) {
+                date = null;
+                setVisible(false);
+            }
+        }
+    }
+
+    private final class MiniMonth extends VBox {
+        private static final double CELL_SIZE = 12;
+
+        private final Label title = new Label();
+        private final Region[] days = new Region[42];
+        private final int[] styles = new int[42];
+        private YearMonth month;
+
+        MiniMonth() {
+            GridPane grid = new GridPane();
+            grid.setHgap(2);
+            grid.setVgap(2);
+            for (int i = 0; i < days.length; i++) {
+                days[i] = new Region();
+                days[i].setPrefSize(CELL_SIZE, CELL_SIZE);
+                days[i].setMinSize(CELL_SIZE, CELL_SIZE);
+                days[i].setStyle(MINI_STYLES[NO_HEAT]);
+                styles[i] = NO_HEAT;
+                grid.add(days[i], i % 7, i / 7);
+            }
+            getChildren().addAll(title, grid);
+            setSpacing(4);
+            setOnMouseClicked(e -> {
+                if (month != null) {
+                    onMonthSelected.accept(month);
+                }
+            });
+        }
+
+        void show(YearMonth newMonth, OccupancyIndex.MonthStats stats) {
+            if (!newMonth.equals(month)) {
+                title.setText(newMonth.getMonth() + " " + newMonth.getYear());
+            }
+            month = newMonth;
+            int offset = newMonth.atDay(1).getDayOfWeek().getValue() % 7;
+            int daysInMonth = newMonth.lengthOfMonth();
+            for (int i = 0; i < days.length; i++) {
+                int day = i - offset + 1;
+                boolean inMonth = day >= 1 && day <= daysInMonth;
+                days[i].setVisible(inMonth);
+                int newStyle = inMonth ? heatStyle(stats, day) : NO_HEAT;
+                if (styles[i] != newStyle) {
+                    styles[i] = newStyle;
+                    days[i].setStyle(MINI_STYLES[newStyle]);
+                }
+            }
+        }
+    }
+
+    private final class WeekCell extends VBox {
+        private final Label header = new Label();
+        private final List<Label> taskLabels = new ArrayList<>();
+        private LocalDate date;
+        private int shown;
+
+        WeekCell() {
+            getChildren().add(header);
+            setStyle("-fx-border-color: #aaa; -fx-padding: 4;");
+            setOnMouseClicked(e -> {
+                if (date != null) {
+                    onDateSelected.accept(date);
+                }
+            });
+        }
+
+        void show(LocalDate newDate, List<Task> tasks) {
+            if (!newDate.equals(date)) {
+                date = newDate;
+                header.setText(newDate.getDayOfWeek() + " - " + newDate);
+            }
+            while (taskLabels.size() < tasks.size()) {
+                Label label = new Label();
+                taskLabels.add(label);
+                getChildren().add(label);
+            }
+            for (int i = 0; i < tasks.size(); i++) {
+                taskLabels.get(i).setText(describe(tasks.get(i)));
+            }
+            for (int i = tasks.size(); i < shown; i++) {
+                taskLabels.get(i).setVisible(false);
+                taskLabels.get(i).setManaged(false);
+            }
+            for (int i = shown; i < tasks.size(); i++) {
+                taskLabels.get(i).setVisible(true);
+                taskLabels.get(i).setManaged(true);
+            }
+            shown = tasks.size();
+        }
+    }
+
+    private static final class HourSlot {
+        final int hour;
+        final List<Task> tasks;
+        final List<String> labels; // describe() of each task when the slot was built
+
+        HourSlot(int hour, List<Task> tasks, List<String> labels) {
+            this.hour = hour;
+            this.tasks = tasks;
+            this.labels = labels;
+        }
+    }
+
+    // Each task is a checkbox bound to its done flag, so occurrences of recurring
+    // tasks can be ticked off one by one.
+    private static final class HourCell extends ListCell<HourSlot> {
+        private final VBox box = new VBox();
+        private final Label hourLabel = new Label();
+        private final List<CheckBox> taskBoxes = new ArrayList<>();
+        private final List<Task> boundTasks = new ArrayList<>();
+
+        HourCell() {
+            box.getChildren().add(hourLabel);
+            box.setStyle("-fx-border-color: #ccc; -fx-padding: 4;");
+        }
+
+        @Override
+        protected void updateItem(HourSlot slot, boolean empty) {
+            super.updateItem(slot, empty);
+            for (int i = 0; i < boundTasks.size(); i++) {
+                taskBoxes.get(i).selectedProperty().unbindBidirectional(boundTasks.get(i).doneProperty());
+            }
+            boundTasks.clear();
+            if (empty || slot == null) {
+                setGraphic(null);
+                return;
+            }
+            hourLabel.setText(slot.hour == ALL_DAY ? "All day" : HOUR_LABELS[slot.hour]);
+            while (taskBoxes.size() < slot.tasks.size()) {
+                CheckBox taskBox = new CheckBox();
+                taskBoxes.add(taskBox);
+                box.getChildren().add(taskBox);
+            }
+            for (int i = 0; i < taskBoxes.size(); i++) {
+                CheckBox taskBox = taskBoxes.get(i);
+                boolean used = i < slot.tasks.size();
+                if (used) {
+                    Task task = slot.tasks.get(i);
+                    taskBox.setText(slot.labels.get(i));
+                    taskBox.selectedProperty().bindBidirectional(task.doneProperty());
+                    boundTasks.add(task);
+                }
+                taskBox.setVisible(used);
+                taskBox.setManaged(used);
+            }
+            setGraphic(box);
+        }
+    }
+}
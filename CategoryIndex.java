@@ -0,0 +1,109 @@
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.SimpleIntegerProperty;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+// Per-category task lists and open/done counters, kept in sync with the task
+// list. Switching the table to a category hands it that category's list, and
+// the counters are adjusted by one on each add, remove, toggle or re-file.
+// Removals from the lists wait for changeComplete, so a batch leaves each list
+// in one pass rather than one search per task.
+public class CategoryIndex implements TaskListener {
+    public static final class Bucket {
+        private final ObservableList<Task> tasks = FXCollections.observableArrayList();
+        private final SimpleIntegerProperty open = new SimpleIntegerProperty(this, "open", 0);
+        private final SimpleIntegerProperty done = new SimpleIntegerProperty(this, "done", 0);
+
+        public ObservableList<Task> tasks() { return tasks; }
+        public ReadOnlyIntegerProperty openCount() { return open; }
+        public ReadOnlyIntegerProperty doneCount() { return done; }
+
+        private void count(boolean isDone, int delta) {
+            SimpleIntegerProperty counter = isDone ? done : open;
+            counter.set(counter.get() + delta);
+        }
+    }
+
+    private final Map<String, Bucket> buckets = new HashMap<>();
+    private final Bucket all = new Bucket();
+    private final Map<Bucket, Set<Task>> unfiled = new IdentityHashMap<>();
+
+    // Live list of the tasks filed under a category, in the order they were filed.
+    public ObservableList<Task> tasksIn(String category) {
+        return bucket(category).tasks;
+    }
+
+    public Bucket bucket(String category) {
+        return buckets.computeIfAbsent(category, c -> new Bucket());
+    }
+
+    // Counters across every task, whatever its category.
+    public Bucket all() {
+        return all;
+    }
+
+    @Override
+    public void taskAdded(Task task) {
+        all.count(task.isDone(), 1);
+        file(task, task.getCategory());
+    }
+
+    @Override
+    public void taskRemoved(Task task) {
+        all.count(task.isDone(), -1);
+        unfile(task, task.getCategory(), task.isDone());
+    }
+
+    @Override
+    public void taskChanged(Task task, TaskField field, Object oldValue, Object newValue) {
+        if (field == TaskField.DONE) {
+            doneChanged(task, (Boolean) oldValue, (Boolean) newValue);
+        } else if (field == TaskField.CATEGORY) {
+            unfile(task, (String) oldValue, task.isDone());
+            file(task, (String) newValue);
+        }
+    }
+
+    @Override
+    public void changeComplete() {
+        for (Map.Entry<Bucket, Set<Task>> entry : unfiled.entrySet()) {
+            entry.getKey().tasks.removeAll(entry.getValue());
+        }
+        unfiled.clear();
+    }
+
+    private void file(Task task, String category) {
+        if (category != null) {
+            Bucket bucket = bucket(category);
+            Set<Task> leaving = unfiled.get(bucket);
+            if (leaving == null || !leaving.remove(task)) {
+                bucket.tasks.add(task);
+            }
+            bucket.count(task.isDone(), 1);
+        }
+    }
+
+    private void unfile(Task task, String category, boolean isDone) {
+        Bucket bucket = category == null ? null : buckets.get(category);
+        if (bucket != null) {
+            unfiled.computeIfAbsent(bucket, b -> Collections.newSetFromMap(new IdentityHashMap<>())).add(task);
+            bucket.count(isDone, -1);
+        }
+    }
+
+    private void doneChanged(Task task, boolean wasDone, boolean isDone) {
+        all.count(wasDone, -1);
+        all.count(isDone, 1);
+        Bucket bucket = task.getCategory() == null ? null : buckets.get(task.getCategory());
+        if (bucket != null) {
+            bucket.count(wasDone, -1);
+            bucket.count(isDone, 1);
+        }
+    }
+}
@@ -1,77 +1,279 @@
 //Daily Planner JavaFX App
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.PauseTransition;
+import javafx.animation.Timeline;
 import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.beans.binding.Bindings;
 import javafx.beans.property.*;
+import javafx.beans.value.ChangeListener;
 import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
+import javafx.collections.transformation.SortedList;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.scene.Node;
+import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.CheckBoxTableCell;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyCodeCombination;
+import javafx.scene.input.KeyCombination;
 import javafx.scene.layout.*;
 import javafx.scene.text.Font;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.time.format.TextStyle;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
 
 
 public class DailyPlannerApp extends Application {
-   private final ObservableList<Task> allTasks = FXCollections.observableArrayList();
-   private final ObservableList<String> categories = FXCollections.observableArrayList("Work", "Personal", "Errands");
+   private final PlannerService planner = new PlannerService(List.of("Work", "Personal", "Errands"));
+   private final TaskStore taskStore = new TaskStore(TaskStore.defaultDirectory());
+   private final TaskTransfer taskTransfer = new TaskTransfer(planner, Platform::runLater);
+   private SyncEngine sync;
+   private ReminderScheduler reminders;
 
 
    private TableView<Task> taskTable;
+   private SortedList<Task> visibleTasks;
+   private Comparator<Task> tableOrder;
    private ComboBox<String> categoryFilter;
+   private ComboBox<String> smartListBox;
+   private TextField searchField;
+   private UndoHistory history;
+   private final UpdateScheduler updates = new UpdateScheduler(Platform::runLater);
+   private final Map<String, Label> chipsByCategory = new HashMap<>();
+   private final PerfMonitor perf = new PerfMonitor();
+   private Label diagnostics;
+   private static final int SEARCH_LIMIT = 1_000;
+   private static final String ALL_TASKS = "All Tasks";
+   private static final int REMINDER_LINES = 10;
    private FlowPane taskChips;
+   private HBox transferBar;
+   private Label transferStatus;
+   private ProgressBar transferProgress;
+   private TaskTransfer.Job activeTransfer;
 
 
    private YearMonth currentYearMonth = YearMonth.now();
    private LocalDate currentDate = LocalDate.now();
-   private GridPane monthGrid;
+   private CalendarRenderer calendarRenderer;
    private Label monthLabel;
    private TextArea agendaArea;
 
 
+   private TaskReports reports;
+   private TaskReports.Period reportPeriod = TaskReports.Period.WEEK;
+   private LocalDate reportDay = LocalDate.now();
+   private TaskReports.Job activeReport;
+   private Label reportLabel;
+   private TextArea reportArea;
+
+
    private TabPane tabs;
    private VBox calendarViewContainer;
 
 
-   private enum CalendarViewMode { DAY, WEEK, MONTH }
+   private enum CalendarViewMode { DAY, WEEK, MONTH, YEAR }
    private CalendarViewMode currentViewMode = CalendarViewMode.MONTH;
 
 
    public static void main(String[] args) {
+       StartupTimer.launched();
        launch(args);
    }
 
 
    @Override
    public void start(Stage primaryStage) {
+       loadTasks();
+       StartupTimer.mark("tasksLoaded");
+       history = new UndoHistory(planner, UndoHistory.DEFAULT_CAPACITY);
+       reports = new TaskReports(planner, Platform::runLater);
+       startSync();
+       reminders = new ReminderScheduler(planner, Platform::runLater, Clock.systemDefaultZone(), this::showReminders);
+       reminders.start();
+
+       // Only the Tasks tab is built before the first frame; the others are built the first time they are selected.
        tabs = new TabPane();
        Tab dashboardTab = new Tab("Tasks", createDashboard());
-       Tab newTaskTab = new Tab("New Task", createNewTaskForm());
-       Tab calendarTab = new Tab("Calendar", createCalendarView());
+       Tab newTaskTab = lazyTab("New Task", this::createNewTaskForm);
+       Tab calendarTab = lazyTab("Calendar", this::createCalendarView);
+       Tab reportsTab = lazyTab("Reports", this::createReportsView);
+       StartupTimer.mark("dashboardBuilt");
 
 
-       tabs.getTabs().addAll(dashboardTab, newTaskTab, calendarTab);
+       tabs.getTabs().addAll(dashboardTab, newTaskTab, calendarTab, reportsTab);
        tabs.setTabClosingPolicy(TabPane.TabClosingPolicy.UNAVAILABLE);
 
 
-       Scene scene = new Scene(tabs, 900, 600);
+       diagnostics = new Label();
+       diagnostics.getStyleClass().add("diagnostics");
+       diagnostics.setMouseTransparent(true);
+       diagnostics.setVisible(false);
+       StackPane.setAlignment(diagnostics, Pos.TOP_RIGHT);
+       StackPane root = new StackPane(tabs, diagnostics);
+
+
+       Scene scene = new Scene(root, 900, 600);
        primaryStage.setTitle("Daily Planner / To-Do List");
+       scheduleViewUpdates(calendarTab, reportsTab);
+       startDiagnostics(root);
+       scene.getAccelerators().put(new KeyCodeCombination(KeyCode.F12), () -> diagnostics.setVisible(!diagnostics.isVisible()));
+       scene.getAccelerators().put(new KeyCodeCombination(KeyCode.Z, KeyCombination.SHORTCUT_DOWN), () -> undoOrRedo(true));
+       scene.getAccelerators().put(new KeyCodeCombination(KeyCode.Y, KeyCombination.SHORTCUT_DOWN), () -> undoOrRedo(false));
+       scene.getStylesheets().add(getClass().getResource("styles.css").toExternalForm()); // before show, so the first layout is styled
        primaryStage.setScene(scene);
+       StartupTimer.watch(scene, perf::registerMBean);
        primaryStage.show();
-       scene.getStylesheets().add(getClass().getResource("styles.css").toExternalForm());
 
    }
 
 
+   @Override
+   public void stop() {
+       if (reminders != null) {
+           reminders.close();
+       }
+       if (sync != null) {
+           sync.close();
+       }
+       taskStore.close();
+   }
+
+
+   // Sync is off unless -Dplanner.syncDir names a folder shared with the other workstations.
+   private void startSync() {
+       String syncDir = System.getProperty("planner.syncDir");
+       if (syncDir == null) {
+           return;
+       }
+       try {
+           sync = new SyncEngine(planner, history, new DirectorySyncTransport(Path.of(syncDir)), Platform::runLater,
+                   TaskStore.defaultDirectory().resolve("sync.state"), SyncEngine.DEFAULT_INTERVAL_MILLIS);
+           sync.start();
+       } catch (IOException e) {
+           System.err.println("Could not start sync: " + e);
+       }
+   }
+
+
+   // Planner changes only mark views dirty; the scheduler redraws each one at most
+   // once per pulse, and the calendar only while its tab is showing.
+   private void scheduleViewUpdates(Tab calendarTab, Tab reportsTab) {
+       updates.register(UpdateScheduler.View.CATEGORY_FILTER, this::updateCategoryFilterItems);
+       updates.register(UpdateScheduler.View.CHIPS, () -> updateChips(taskChips));
+       updates.register(UpdateScheduler.View.TABLE, () -> {
+           if (!searchField.getText().isBlank() || selectedSmartList() != null) {
+               applyTaskFilters(); // search results and smart lists are snapshots, the other lists are live
+           }
+       });
+       updates.register(UpdateScheduler.View.CALENDAR, this::renderCalendar, calendarTab::isSelected);
+       updates.register(UpdateScheduler.View.AGENDA, () -> updateAgenda(currentDate), calendarTab::isSelected);
+       calendarTab.selectedProperty().addListener((obs, wasSelected, isSelected) -> updates.requestFlush());
+       updates.register(UpdateScheduler.View.REPORTS, this::refreshReport, reportsTab::isSelected);
+       reportsTab.selectedProperty().addListener((obs, wasSelected, isSelected) -> {
+           if (isSelected) {
+               updates.markDirty(UpdateScheduler.View.REPORTS);
+           } else {
+               cancelReport();
+           }
+       });
+
+       planner.addListener(new TaskListener() {
+           @Override
+           public void changeComplete() {
+               updates.markDirty(UpdateScheduler.View.TABLE, UpdateScheduler.View.CALENDAR, UpdateScheduler.View.AGENDA,
+                       UpdateScheduler.View.REPORTS);
+           }
+       });
+       planner.categories().addListener((ListChangeListener<String>) change ->
+               updates.markDirty(UpdateScheduler.View.CATEGORY_FILTER, UpdateScheduler.View.CHIPS));
+   }
+
+
+   // Samples the node count once a second for the gauges, and refreshes the
+   // overlay (toggled with F12) while it is showing. The MBean is registered
+   // once startup is interactive.
+   private void startDiagnostics(StackPane root) {
+       Timeline sampler = new Timeline(new KeyFrame(Duration.seconds(1), e -> {
+           perf.setSceneNodes(countNodes(root));
+           if (diagnostics.isVisible()) {
+               diagnostics.setText(perf.summary());
+           }
+       }));
+       sampler.setCycleCount(Animation.INDEFINITE);
+       sampler.play();
+   }
+
+
+   // The content is created on first selection. This listener is added before
+   // any other selection listener on the tab, so it runs first.
+   private static Tab lazyTab(String title, Supplier<Node> content) {
+       Tab tab = new Tab(title);
+       tab.selectedProperty().addListener((obs, wasSelected, isSelected) -> {
+           if (isSelected && tab.getContent() == null) {
+               tab.setContent(content.get());
+           }
+       });
+       return tab;
+   }
+
+
+   private static int countNodes(Parent parent) {
+       int count = 1;
+       for (Node child : parent.getChildrenUnmodifiable()) {
+           count += child instanceof Parent ? countNodes((Parent) child) : 1;
+       }
+       return count;
+   }
+
+
+   private void loadTasks() {
+       try {
+           TaskStore.Contents contents = taskStore.open();
+           if (!contents.fresh) {
+               planner.replaceAll(contents.tasks, contents.categories);
+           }
+       } catch (IOException e) {
+           System.err.println("Could not load saved tasks: " + e);
+       }
+       // The store keeps retrying, and reports each outage once rather than every attempt.
+       taskStore.setOnWriteFailure(e -> Platform.runLater(() -> new Alert(Alert.AlertType.ERROR,
+               "Your changes could not be saved to disk (" + e.getMessage() + "). They are kept while"
+                       + " the planner is open and will be saved as soon as the disk is writable again.").show()));
+       taskStore.attach(planner);
+   }
+
+
    private VBox createDashboard() {
        Label header = new Label("Today: " + LocalDate.now());
        header.setFont(Font.font("Arial", 20));
+       scheduleMidnightRollover(header);
 
 
        Button addButton = new Button("Add New Task +");
@@ -83,7 +285,24 @@ public class DailyPlannerApp extends Application {
        categoryFilter = new ComboBox<>();
        updateCategoryFilterItems();
        categoryFilter.setValue("All");
-       categoryFilter.setOnAction(e -> refreshTaskTable());
+       categoryFilter.setOnAction(e -> applyTaskFilters());
+
+
+       smartListBox = new ComboBox<>();
+       smartListBox.getItems().add(ALL_TASKS);
+       for (DueIndex.SmartList list : DueIndex.SmartList.values()) {
+           smartListBox.getItems().add(list.label());
+       }
+       smartListBox.setValue(ALL_TASKS);
+       smartListBox.setOnAction(e -> applyTaskFilters());
+
+
+       // Search once typing pauses rather than on every keystroke.
+       searchField = new TextField();
+       searchField.setPromptText("Search tasks…");
+       PauseTransition searchDelay = new PauseTransition(Duration.millis(150));
+       searchDelay.setOnFinished(e -> applyTaskFilters());
+       searchField.textProperty().addListener((obs, oldText, newText) -> searchDelay.playFromStart());
 
 
        Button addCatBtn = new Button("Add Category");
@@ -93,28 +312,19 @@ public class DailyPlannerApp extends Application {
            dialog.setHeaderText("Create a new category");
            dialog.setContentText("Category name:");
            dialog.showAndWait().ifPresent(name -> {
-               if (!name.isBlank() && !categories.contains(name)) {
-                   categories.add(name);
-                   updateCategoryFilterItems();
-                   updateChips(taskChips);
-               }
+               planner.addCategory(name);
            });
        });
 
 
        Button delCatBtn = new Button("Delete Category");
        delCatBtn.setOnAction(e -> {
-           ChoiceDialog<String> dialog = new ChoiceDialog<>(null, categories);
+           ChoiceDialog<String> dialog = new ChoiceDialog<>(null, planner.categories());
            dialog.setTitle("Delete Category");
            dialog.setHeaderText("Select a category to delete");
            dialog.setContentText("Category:");
            dialog.showAndWait().ifPresent(name -> {
-               categories.remove(name);
-               if (categoryFilter.getValue().equals(name)) {
-                   categoryFilter.setValue("All");
-               }
-               updateCategoryFilterItems();
-               updateChips(taskChips);
+               planner.removeCategory(name);
            });
        });
 
@@ -123,11 +333,43 @@ public class DailyPlannerApp extends Application {
        catControls.setAlignment(Pos.CENTER_LEFT);
 
 
-       HBox topBar = new HBox(10, header, addButton, new Label("Category:"), categoryFilter, catControls);
+       Button importBtn = new Button("Import…");
+       importBtn.setOnAction(e -> startTransfer(true));
+       Button exportBtn = new Button("Export…");
+       exportBtn.setOnAction(e -> startTransfer(false));
+
+
+       Button undoBtn = new Button("Undo");
+       undoBtn.setOnAction(e -> undoOrRedo(true));
+       undoBtn.setDisable(true);
+       history.canUndoProperty().addListener((obs, oldVal, newVal) -> undoBtn.setDisable(!newVal));
+       Button redoBtn = new Button("Redo");
+       redoBtn.setOnAction(e -> undoOrRedo(false));
+       redoBtn.setDisable(true);
+       history.canRedoProperty().addListener((obs, oldVal, newVal) -> redoBtn.setDisable(!newVal));
+
+
+       HBox topBar = new HBox(10, header, addButton, new Label("Show:"), smartListBox, new Label("Category:"), categoryFilter,
+               catControls, searchField,
+               undoBtn, redoBtn, importBtn, exportBtn);
        topBar.setPadding(new Insets(10));
        topBar.setAlignment(Pos.CENTER_LEFT);
 
 
+       transferStatus = new Label();
+       transferProgress = new ProgressBar(0);
+       Button cancelTransferBtn = new Button("Cancel");
+       cancelTransferBtn.setOnAction(e -> {
+           if (activeTransfer != null) {
+               activeTransfer.cancel();
+           }
+       });
+       transferBar = new HBox(10, transferStatus, transferProgress, cancelTransferBtn);
+       transferBar.setAlignment(Pos.CENTER_LEFT);
+       transferBar.setPadding(new Insets(0, 10, 0, 10));
+       showTransferBar(false);
+
+
        taskChips = new FlowPane(8, 8);
        updateChips(taskChips);
        taskChips.setPadding(new Insets(0, 10, 10, 10));
@@ -136,45 +378,13 @@ public class DailyPlannerApp extends Application {
        taskTable = new TableView<>();
        taskTable.setPlaceholder(new Label("No tasks yet — click 'Add New Task +'"));
        
-       // Done Column with checkbox, this will aslo update the status
-       TableColumn<Task, Boolean> doneCol = new TableColumn<>("Done");
-       doneCol.setCellValueFactory(param -> param.getValue().doneProperty());
-       doneCol.setCellFactory(col -> {
-           CheckBoxTableCell<Task, Boolean> cell = new CheckBoxTableCell<>();
-           cell.setSelectedStateCallback(index -> {
-               Task task = taskTable.getItems().get(index);
-               BooleanProperty selected = task.doneProperty();
-               selected.addListener((obs, wasDone, isNowDone) -> {
-                   task.statusProperty().set(isNowDone ? "Done" : "Pending");
-                   taskTable.refresh(); // ensures strikethrough updates visually
-               });
-               return selected;
-           });
-           return cell;
-       });
-       doneCol.setEditable(true);
+       // Done Column with checkbox; the cell binds to doneProperty and the task keeps its status in step
+       TableColumn<Task, Boolean> doneCol = createDoneColumn();
        
        //For eeach task, wehn a user clicks on the done box, there will be a mark
        TableColumn<Task, String> nameCol = new TableColumn<>("Task");
        nameCol.setCellValueFactory(param -> param.getValue().nameProperty());
-       nameCol.setCellFactory(column -> new TableCell<>() {
-           @Override
-           protected void updateItem(String item, boolean empty) {
-               super.updateItem(item, empty);
-               if (empty || item == null) {
-                   setText(null);
-                   setStyle("");
-               } else {
-                   Task task = getTableView().getItems().get(getIndex());
-                   setText(item);
-                   setStyle(task.doneProperty().get() ? "-fx-strikethrough: true; -fx-text-fill: gray;" : "");
-       
-                   task.doneProperty().addListener((obs, wasDone, isNowDone) -> {
-                       setStyle(isNowDone ? "-fx-strikethrough: true; -fx-text-fill: gray;" : "");
-                   });
-               }
-           }
-       });
+       nameCol.setCellFactory(column -> new TaskNameCell());
        
        TableColumn<Task, String> dateCol = new TableColumn<>("Due Date");
 dateCol.setCellValueFactory(param -> param.getValue().dateProperty());
@@ -188,12 +398,35 @@ dateCol.setPrefWidth(130);  //width for dates of tasks
        statusCol.setCellValueFactory(param -> param.getValue().statusProperty());
        
        taskTable.getColumns().addAll(doneCol, nameCol, dateCol, prioCol, statusCol);
-       taskTable.setItems(allTasks);
+       // Sort on the plain getters, so sorting a large list never creates a property per row.
+       Comparator<String> text = Comparator.nullsFirst(Comparator.naturalOrder());
+       Map<TableColumn<Task, ?>, Comparator<Task>> sortKeys = Map.of(
+               doneCol, Comparator.comparing(Task::isDone),
+               nameCol, Comparator.comparing(Task::getName, text),
+               dateCol, Comparator.comparing(Task::getDate, text),
+               prioCol, Comparator.comparing(Task::getPriority, text),
+               statusCol, Comparator.comparing(Task::getStatus, text));
+       taskTable.setSortPolicy(table -> {
+           Comparator<Task> order = null;
+           for (TableColumn<Task, ?> column : table.getSortOrder()) {
+               Comparator<Task> key = sortKeys.get(column);
+               if (column.getSortType() == TableColumn.SortType.DESCENDING) {
+                   key = key.reversed();
+               }
+               order = order == null ? key : order.thenComparing(key);
+           }
+           tableOrder = order;
+           if (visibleTasks != null) {
+               visibleTasks.setComparator(order);
+           }
+           return true;
+       });
+       applyTaskFilters();
        taskTable.setEditable(true);
        
 
 
-       VBox dashboard = new VBox(10, topBar, taskChips, taskTable);
+       VBox dashboard = new VBox(10, topBar, transferBar, taskChips, taskTable);
        dashboard.setPadding(new Insets(10));
        VBox.setVgrow(taskTable, Priority.ALWAYS);
        return dashboard;
@@ -209,6 +442,8 @@ dateCol.setPrefWidth(130);  //width for dates of tasks
        TextArea descArea = new TextArea();
        DatePicker datePicker = new DatePicker(LocalDate.now());
        TextField timeField = new TextField("14:00");
+       TextField durationField = new TextField();
+       durationField.setPromptText("minutes");
 
 
        ToggleGroup prioGroup = new ToggleGroup();
@@ -221,14 +456,37 @@ dateCol.setPrefWidth(130);  //width for dates of tasks
        medRB.setSelected(true);
 
 
-       ComboBox<String> catBox = new ComboBox<>(categories);
+       ComboBox<String> catBox = new ComboBox<>(planner.categories());
        catBox.setEditable(true);
-       catBox.setValue(categories.get(0));
+       catBox.setValue(planner.categories().isEmpty() ? null : planner.categories().get(0));
 
 
        TextField tagsField = new TextField();
 
 
+       ComboBox<String> repeatBox = new ComboBox<>(FXCollections.observableArrayList("Never", "Daily", "Weekly", "Monthly"));
+       repeatBox.setValue("Never");
+       List<CheckBox> weekdayBoxes = new ArrayList<>();
+       HBox weekdays = new HBox(5);
+       for (DayOfWeek day : DayOfWeek.values()) {
+           CheckBox dayBox = new CheckBox(day.getDisplayName(TextStyle.SHORT, Locale.getDefault()));
+           weekdayBoxes.add(dayBox);
+           weekdays.getChildren().add(dayBox);
+       }
+       weekdays.setVisible(false);
+       weekdays.setManaged(false);
+       repeatBox.valueProperty().addListener((obs, oldVal, newVal) -> {
+           weekdays.setVisible("Weekly".equals(newVal));
+           weekdays.setManaged("Weekly".equals(newVal));
+       });
+       DatePicker untilPicker = new DatePicker();
+       untilPicker.setPromptText("until (optional)");
+       TextField timesField = new TextField();
+       timesField.setPromptText("times (optional)");
+       HBox repeatRow = new HBox(10, repeatBox, weekdays, untilPicker, timesField);
+       repeatRow.setAlignment(Pos.CENTER_LEFT);
+
+
        Button cancelBtn = new Button("Cancel");
        cancelBtn.setOnAction(e -> tabs.getSelectionModel().select(0));
 
@@ -237,18 +495,46 @@ dateCol.setPrefWidth(130);  //width for dates of tasks
        saveBtn.setOnAction(e -> {
            String name = titleField.getText();
            String date = datePicker.getValue().toString();
+           LocalTime time;
+           int duration;
+           int times;
+           try {
+               time = timeField.getText().isBlank() ? null : LocalTime.parse(timeField.getText().trim());
+               duration = durationField.getText().isBlank() ? 0 : Integer.parseInt(durationField.getText().trim());
+               times = timesField.getText().isBlank() ? 0 : Integer.parseInt(timesField.getText().trim());
+           } catch (DateTimeParseException | NumberFormatException ex) {
+               new Alert(Alert.AlertType.WARNING,
+                       "Enter the time as HH:MM, and the duration and repeat count as whole numbers.").showAndWait();
+               return;
+           }
+           RecurrenceRule recurrence = null;
+           if (!repeatBox.getValue().equals("Never")) {
+               Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+               for (int i = 0; i < weekdayBoxes.size(); i++) {
+                   if (weekdayBoxes.get(i).isSelected()) {
+                       days.add(DayOfWeek.of(i + 1));
+                   }
+               }
+               recurrence = new RecurrenceRule(RecurrenceRule.Frequency.valueOf(repeatBox.getValue().toUpperCase(Locale.ROOT)),
+                       1, days, untilPicker.getValue(), Math.max(0, times));
+           }
            Toggle toggle = prioGroup.getSelectedToggle();
            String prio = toggle == null ? "Medium" : ((RadioButton) toggle).getText();
            String status = "Pending";
            String category = catBox.getValue();
-           if (!categories.contains(category)) {
-               categories.add(category);
-               updateCategoryFilterItems();
-               updateChips(taskChips);
-           }
-           Task task = new Task(name, date, prio, status);
-           allTasks.add(task);
-           clearForm(titleField, descArea, datePicker, timeField, prioGroup, catBox, tagsField);
+           planner.addCategory(category);
+           Task task = new Task(name, date, prio, status, category, time, duration);
+           task.setDescription(descArea.getText().isBlank() ? null : descArea.getText());
+           task.setTags(tagsField.getText().isBlank() ? null : tagsField.getText().trim());
+           task.setRecurrence(recurrence);
+           long saveStart = perf.start();
+           planner.addTask(task);
+           perf.stop(PerfMonitor.Probe.TASK_SAVE, saveStart);
+           clearForm(titleField, descArea, datePicker, timeField, durationField, prioGroup, catBox, tagsField);
+           repeatBox.setValue("Never");
+           weekdayBoxes.forEach(dayBox -> dayBox.setSelected(false));
+           untilPicker.setValue(null);
+           timesField.clear();
            tabs.getSelectionModel().select(0);
        });
 
@@ -259,7 +545,10 @@ dateCol.setPrefWidth(130);  //width for dates of tasks
        form.add(new Label("Time:"),0,3);     form.add(timeField,1,3);
        form.add(new Label("Priority:"),0,4); form.add(new HBox(10,highRB,medRB,lowRB),1,4);
        form.add(new Label("Category:"),0,5); form.add(catBox,1,5);
-       form.add(new HBox(10,cancelBtn,saveBtn),1,7);
+       form.add(new Label("Duration:"),0,6); form.add(durationField,1,6);
+       form.add(new Label("Tags:"),0,7);     form.add(tagsField,1,7);
+       form.add(new Label("Repeat:"),0,8);   form.add(repeatRow,1,8);
+       form.add(new HBox(10,cancelBtn,saveBtn),1,9);
 
 
        return new VBox(form);
@@ -283,10 +572,20 @@ dateCol.setPrefWidth(130);  //width for dates of tasks
        nextMonth.setOnAction(e -> { currentYearMonth = currentYearMonth.plusMonths(1); updateCalendarView(); });
 
 
-       monthGrid = new GridPane();
-       monthGrid.setHgap(5);
-       monthGrid.setVgap(5);
-       monthGrid.setPadding(new Insets(10));
+       ToggleGroup viewToggle = new ToggleGroup();
+       RadioButton dayView = new RadioButton("Day View");
+       RadioButton weekView = new RadioButton("Week View");
+       RadioButton monthView = new RadioButton("Month View");
+       RadioButton yearView = new RadioButton("Year View");
+
+
+       calendarRenderer = new CalendarRenderer(planner, date -> {
+           currentDate = date;
+           updateCalendarView();
+       }, month -> {
+           currentYearMonth = month;
+           monthView.setSelected(true);
+       });
 
 
        agendaArea = new TextArea();
@@ -294,13 +593,10 @@ dateCol.setPrefWidth(130);  //width for dates of tasks
        agendaArea.setPrefHeight(120);
 
 
-       ToggleGroup viewToggle = new ToggleGroup();
-       RadioButton dayView = new RadioButton("Day View");
-       RadioButton weekView = new RadioButton("Week View");
-       RadioButton monthView = new RadioButton("Month View");
        dayView.setToggleGroup(viewToggle);
        weekView.setToggleGroup(viewToggle);
        monthView.setToggleGroup(viewToggle);
+       yearView.setToggleGroup(viewToggle);
        monthView.setSelected(true);
 
 
@@ -310,12 +606,13 @@ dateCol.setPrefWidth(130);  //width for dates of tasks
                if (selected.equals("Month View")) currentViewMode = CalendarViewMode.MONTH;
                else if (selected.equals("Day View")) currentViewMode = CalendarViewMode.DAY;
                else if (selected.equals("Week View")) currentViewMode = CalendarViewMode.WEEK;
+               else if (selected.equals("Year View")) currentViewMode = CalendarViewMode.YEAR;
                updateCalendarView();
            }
        });
 
 
-       HBox viewBox = new HBox(10, dayView, weekView, monthView);
+       HBox viewBox = new HBox(10, dayView, weekView, monthView, yearView);
        viewBox.setAlignment(Pos.CENTER);
        viewBox.setPadding(new Insets(10));
 
@@ -333,203 +630,390 @@ dateCol.setPrefWidth(130);  //width for dates of tasks
    }
 
 
+   private VBox createReportsView() {
+       ToggleGroup periodGroup = new ToggleGroup();
+       RadioButton weekRB = new RadioButton("Week");
+       RadioButton monthRB = new RadioButton("Month");
+       weekRB.setToggleGroup(periodGroup);
+       monthRB.setToggleGroup(periodGroup);
+       weekRB.setSelected(true);
+       periodGroup.selectedToggleProperty().addListener((obs, oldVal, newVal) -> {
+           reportPeriod = newVal == monthRB ? TaskReports.Period.MONTH : TaskReports.Period.WEEK;
+           refreshReport();
+       });
+
+
+       Button prev = new Button("‹");
+       prev.setOnAction(e -> { reportDay = reportPeriod == TaskReports.Period.WEEK ? reportDay.minusWeeks(1) : reportDay.minusMonths(1); refreshReport(); });
+       Button next = new Button("›");
+       next.setOnAction(e -> { reportDay = reportPeriod == TaskReports.Period.WEEK ? reportDay.plusWeeks(1) : reportDay.plusMonths(1); refreshReport(); });
+       reportLabel = new Label();
+       HBox nav = new HBox(10, weekRB, monthRB, prev, reportLabel, next);
+       nav.setAlignment(Pos.CENTER_LEFT);
+
+
+       reportArea = new TextArea();
+       reportArea.setEditable(false);
+       reportArea.getStyleClass().add("report");
+
+
+       VBox view = new VBox(10, nav, reportArea);
+       view.setPadding(new Insets(10));
+       VBox.setVgrow(reportArea, Priority.ALWAYS);
+       return view;
+   }
+
+
+   // Reports are tallied off the FX thread unless the period is cached; a newer
+   // request, or leaving the tab, cancels the one in flight.
+   private void refreshReport() {
+       cancelReport();
+       reportLabel.setText(TaskReports.periodStart(reportPeriod, reportDay) + " – " + TaskReports.periodEnd(reportPeriod, reportDay));
+       TaskReports.Job job = reports.request(reportPeriod, reportDay, LocalDate.now());
+       activeReport = job;
+       if (!job.result().isDone()) {
+           reportArea.setText("Working…");
+       }
+       job.result().thenAccept(report -> {
+           if (activeReport == job) {
+               activeReport = null;
+               reportArea.setText(report.text());
+           }
+       });
+   }
+
+
+   private void cancelReport() {
+       if (activeReport != null) {
+           activeReport.cancel();
+           activeReport = null;
+       }
+   }
+
+
    private void updateCalendarView() {
-       calendarViewContainer.getChildren().clear();
+       long start = perf.start();
+       renderCalendar();
+       updateAgenda(currentDate);
+       perf.stop(PerfMonitor.Probe.CALENDAR_VIEW, start);
+   }
+
+
+   private void renderCalendar() {
        switch (currentViewMode) {
            case MONTH -> buildMonthGrid();
            case DAY -> buildDayView(currentDate);
            case WEEK -> buildWeekView(currentDate);
+           case YEAR -> buildYearView();
        }
-       updateAgenda(currentDate);
    }
 
 
    private void buildDayView(LocalDate date) {
-       VBox dayBox = new VBox(5);
-       for (int hour = 0; hour < 24; hour++) {
-           String hourLabel = String.format("%02d:00", hour);
-           Label label = new Label(hourLabel);
-           VBox slot = new VBox(label);
-           slot.setStyle("-fx-border-color: #ccc; -fx-padding: 4;");
-           int finalHour = hour;
-           allTasks.stream()
-               .filter(t -> t.getDate().equals(date.toString()))
-               .filter(t -> t.getName().contains(String.format("%02d:", finalHour)))
-               .forEach(t -> slot.getChildren().add(new Label("- " + t.getName())));
-           dayBox.getChildren().add(slot);
-       }
-       calendarViewContainer.getChildren().add(dayBox);
+       long start = perf.start();
+       showCalendarNode(calendarRenderer.renderDay(date));
+       perf.stop(PerfMonitor.Probe.DAY_VIEW, start);
    }
 
 
    private void buildWeekView(LocalDate baseDate) {
-       VBox weekBox = new VBox(10);
-       LocalDate start = baseDate.with(DayOfWeek.MONDAY);
-       for (int i = 0; i < 7; i++) {
-           LocalDate date = start.plusDays(i);
-           VBox dayBox = new VBox(new Label(date.getDayOfWeek() + " - " + date));
-           allTasks.stream()
-               .filter(t -> t.getDate().equals(date.toString()))
-               .forEach(t -> dayBox.getChildren().add(new Label("- " + t.getName())));
-           dayBox.setStyle("-fx-border-color: #aaa; -fx-padding: 4;");
-           dayBox.setOnMouseClicked(e -> {
-               currentDate = date;
-               updateCalendarView();
-           });
-           weekBox.getChildren().add(dayBox);
-       }
-       calendarViewContainer.getChildren().add(weekBox);
+       long start = perf.start();
+       showCalendarNode(calendarRenderer.renderWeek(baseDate));
+       perf.stop(PerfMonitor.Probe.WEEK_VIEW, start);
    }
 
 
    private void buildMonthGrid() {
-       monthGrid.getChildren().clear();
+       long start = perf.start();
        monthLabel.setText(currentYearMonth.getMonth() + " " + currentYearMonth.getYear());
+       showCalendarNode(calendarRenderer.renderMonth(currentYearMonth));
+       perf.stop(PerfMonitor.Probe.MONTH_GRID, start);
+   }
 
 
-       String[] days = {"Su", "Mo", "Tu", "We", "Th", "Fr", "Sa"};
-       for (int i = 0; i < days.length; i++) {
-           Label day = new Label(days[i]);
-           day.setFont(Font.font(12));
-           monthGrid.add(day, i, 0);
-       }
-
-
-       LocalDate firstDay = currentYearMonth.atDay(1);
-       int col = firstDay.getDayOfWeek().getValue() % 7;
-       int row = 1;
-       int daysInMonth = currentYearMonth.lengthOfMonth();
+   private void buildYearView() {
+       long start = perf.start();
+       monthLabel.setText(String.valueOf(currentYearMonth.getYear()));
+       showCalendarNode(calendarRenderer.renderYear(currentYearMonth.getYear()));
+       perf.stop(PerfMonitor.Probe.YEAR_VIEW, start);
+   }
 
 
-       for (int d = 1; d <= daysInMonth; d++) {
-           VBox cell = new VBox();
-           cell.setPadding(new Insets(4));
-           cell.setStyle("-fx-border-color: #ccc;");
-           Label dateLabel = new Label(String.valueOf(d));
-           cell.getChildren().add(dateLabel);
-           final int currentDay = d;
-           LocalDate thisDate = LocalDate.of(currentYearMonth.getYear(), currentYearMonth.getMonth(), currentDay);
-           if (allTasks.stream().anyMatch(t -> t.getDate().equals(thisDate.toString()))) {
-               cell.getChildren().add(new Label("•"));
-           }
-           cell.setOnMouseClicked(e -> {
-               currentDate = thisDate;
-               updateCalendarView();
-           });
-           monthGrid.add(cell, col, row);
-           if (++col > 6) { col = 0; row++; }
+   // The renderer's nodes are retained, so only swap the container's child when the view mode changes.
+   private void showCalendarNode(Node view) {
+       ObservableList<Node> children = calendarViewContainer.getChildren();
+       if (children.size() != 1 || children.get(0) != view) {
+           VBox.setVgrow(view, Priority.ALWAYS);
+           children.setAll(view);
        }
-       calendarViewContainer.getChildren().add(monthGrid);
    }
 
 
    private void updateAgenda(LocalDate date) {
-       StringBuilder sb = new StringBuilder("Tasks on " + date + ":\n");
-       allTasks.stream()
-               .filter(t -> t.getDate().equals(date.toString()))
-               .forEach(t -> sb.append("- ").append(t.getName()).append("\n"));
-       agendaArea.setText(sb.toString());
+       long start = perf.start();
+       agendaArea.setText(planner.agendaText(date));
+       perf.stop(PerfMonitor.Probe.AGENDA, start);
    }
 
 
+   // The views follow the replayed changes through the update scheduler.
+   private void undoOrRedo(boolean undo) {
+       if (undo) {
+           history.undo();
+       } else {
+           history.redo();
+       }
+   }
+
+
+   // Leaves the combo alone unless the categories differ, and falls back to "All"
+   // when the selected category has gone.
    private void updateCategoryFilterItems() {
-       if (categoryFilter != null) {
-           categoryFilter.getItems().setAll("All");
-           categoryFilter.getItems().addAll(categories);
+       if (categoryFilter == null) {
+           return;
+       }
+       List<String> items = new ArrayList<>();
+       items.add("All");
+       items.addAll(planner.categories());
+       if (!categoryFilter.getItems().equals(items)) {
+           String selected = categoryFilter.getValue();
+           categoryFilter.getItems().setAll(items);
+           categoryFilter.setValue(selected != null && items.contains(selected) ? selected : "All");
        }
    }
 
 
+   // Chips are bound to their category's live counters, so only categories that
+   // came or went need a chip created or dropped.
    private void updateChips(FlowPane chips) {
-       chips.getChildren().clear();
-       chips.getChildren().add(createChip("All"));
-       for (String cat : categories) {
-           chips.getChildren().add(createChip(cat));
+       List<Node> wanted = new ArrayList<>();
+       wanted.add(chipsByCategory.computeIfAbsent("All", this::createChip));
+       for (String cat : planner.categories()) {
+           wanted.add(chipsByCategory.computeIfAbsent(cat, this::createChip));
+       }
+       chipsByCategory.keySet().removeIf(cat -> !cat.equals("All") && !planner.categories().contains(cat));
+       if (!chips.getChildren().equals(wanted)) {
+           chips.getChildren().setAll(wanted);
        }
    }
 
 
    private Label createChip(String label) {
-       Label chip = new Label(label);
+       CategoryIndex.Bucket bucket = planner.categoryCounts(label.equals("All") ? null : label);
+       Label chip = new Label();
+       chip.textProperty().bind(Bindings.format("%s (%d open, %d done)", label, bucket.openCount(), bucket.doneCount()));
        chip.setStyle("-fx-border-color: gray; -fx-border-radius: 4; -fx-padding: 4 8; -fx-cursor: hand;");
        chip.setOnMouseClicked(e -> categoryFilter.setValue(label));
        return chip;
    }
 
 
-   private void refreshTaskTable() {
-       taskTable.refresh();
+   // Imports or exports on a background thread; the bar shows progress until the job finishes.
+   private void startTransfer(boolean importing) {
+       if (activeTransfer != null) {
+           return;
+       }
+       FileChooser chooser = new FileChooser();
+       chooser.setTitle(importing ? "Import Tasks" : "Export Tasks");
+       chooser.getExtensionFilters().addAll(
+               new FileChooser.ExtensionFilter("CSV", "*.csv"),
+               new FileChooser.ExtensionFilter("JSON Lines", "*.jsonl", "*.ndjson"),
+               new FileChooser.ExtensionFilter("iCalendar", "*.ics"));
+       File file = importing
+               ? chooser.showOpenDialog(tabs.getScene().getWindow())
+               : chooser.showSaveDialog(tabs.getScene().getWindow());
+       if (file == null) {
+           return;
+       }
+       transferStatus.setText((importing ? "Importing " : "Exporting ") + file.getName());
+       transferProgress.setProgress(0);
+       showTransferBar(true);
+       TaskTransfer.Job job = importing
+               ? taskTransfer.importFile(file.toPath(), transferProgress::setProgress)
+               : taskTransfer.exportFile(file.toPath(), transferProgress::setProgress);
+       activeTransfer = job;
+       job.result().whenComplete((count, error) -> Platform.runLater(() -> {
+           activeTransfer = null;
+           showTransferBar(false);
+           Alert alert = new Alert(error == null ? Alert.AlertType.INFORMATION : Alert.AlertType.ERROR);
+           alert.setTitle(importing ? "Import" : "Export");
+           alert.setHeaderText(null);
+           if (error != null) {
+               alert.setContentText("Failed: " + error.getMessage());
+           } else {
+               alert.setContentText((importing ? "Imported " : "Exported ") + count + " tasks"
+                       + (job.isCancelled() ? " before it was cancelled." : ".")
+                       + (job.unsupportedRecurrences() > 0 ? "\n" + job.unsupportedRecurrences()
+                               + " of them repeat in a way the planner does not support and were imported as one-off tasks." : "")
+                       + (job.skippedRecords() > 0 ? "\n" + job.skippedRecords()
+                               + " records could not be read and were skipped." : ""));
+           }
+           alert.show();
+       }));
    }
 
 
-   private void clearForm(TextField title, TextArea desc, DatePicker date, TextField time,
-                          ToggleGroup prio, ComboBox<String> cat, TextField tags) {
-       title.clear(); desc.clear(); date.setValue(LocalDate.now());
-       time.setText("14:00"); prio.selectToggle(prio.getToggles().get(1));
-       cat.setValue("Work");
-      tags.clear();
-  }
-
-
-
-
-  private Label createChip(String label) {
-      Label chip = new Label(label);
-      chip.setStyle("-fx-border-color: gray; -fx-border-radius: 4; -fx-padding: 4 8; -fx-cursor: hand;");
-      chip.setOnMouseClicked(e -> categoryFilter.setValue(label));
-      return chip;
-  }
-
-
-
+   // One notification per batch: tasks that come due together share it.
+   private void showReminders(List<Task> due) {
+       StringBuilder text = new StringBuilder();
+       for (int i = 0; i < Math.min(due.size(), REMINDER_LINES); i++) {
+           Task task = due.get(i);
+           text.append(task.getName());
+           if (task.getTime() != null) {
+               text.append(" (").append(task.getTime()).append(')');
+           }
+           text.append('\n');
+       }
+       if (due.size() > REMINDER_LINES) {
+           text.append("…and ").append(due.size() - REMINDER_LINES).append(" more");
+       }
+       Alert alert = new Alert(Alert.AlertType.INFORMATION);
+       alert.setTitle("Reminder");
+       alert.setHeaderText(due.size() == 1 ? "1 task is due" : due.size() + " tasks are due");
+       alert.setContentText(text.toString().strip());
+       alert.show();
+   }
 
-  public static class Task {
-      private final SimpleStringProperty name;
-      private final SimpleStringProperty date;
-      private final SimpleStringProperty priority;
-      private final SimpleStringProperty status;
-      private final SimpleBooleanProperty done;
 
+   private DueIndex.SmartList selectedSmartList() {
+       return smartListBox == null ? null : DueIndex.SmartList.forLabel(smartListBox.getValue());
+   }
 
 
+   // At midnight the header moves to the new day and smart lists are re-cut for it;
+   // the index itself does not change.
+   private void scheduleMidnightRollover(Label header) {
+       LocalDateTime now = LocalDateTime.now();
+       PauseTransition untilMidnight = new PauseTransition(
+               Duration.millis(java.time.Duration.between(now, now.toLocalDate().plusDays(1).atStartOfDay()).toMillis() + 1));
+       untilMidnight.setOnFinished(e -> {
+           header.setText("Today: " + LocalDate.now());
+           updates.markDirty(UpdateScheduler.View.TABLE);
+           scheduleMidnightRollover(header);
+       });
+       untilMidnight.play();
+   }
 
-      public Task(String name, String date, String priority, String status) {
-          this.name = new SimpleStringProperty(name);
-          this.date = new SimpleStringProperty(date);
-          this.priority = new SimpleStringProperty(priority);
-          this.status = new SimpleStringProperty(status);
-          this.done = new SimpleBooleanProperty(false);
-      }
 
+   private void showTransferBar(boolean visible) {
+       transferBar.setVisible(visible);
+       transferBar.setManaged(visible);
+   }
 
 
+   // Shows the selected category's live list, or, while the search box has text,
+   // the matching tasks from the search index, or the selected smart list.
+   private void applyTaskFilters() {
+       long start = perf.start();
+       String category = categoryFilter.getValue();
+       if (category != null && category.equals("All")) {
+           category = null;
+       }
+       String query = searchField == null ? "" : searchField.getText();
+       DueIndex.SmartList smartList = selectedSmartList();
+       ObservableList<Task> source = !query.isBlank()
+               ? FXCollections.observableArrayList(planner.search(query, category, SEARCH_LIMIT))
+               : smartList != null
+               ? FXCollections.observableArrayList(planner.smartList(smartList, LocalDate.now(), category, SEARCH_LIMIT))
+               : category == null ? planner.tasks() : planner.categoryView(category);
+       if (visibleTasks == null || visibleTasks.getSource() != source) {
+           visibleTasks = new SortedList<>(source, tableOrder);
+           taskTable.setItems(visibleTasks);
+       }
+       perf.stop(PerfMonitor.Probe.TABLE_REFRESH, start);
+   }
 
-      public StringProperty nameProperty() { return name; }
-      public String getName() { return name.get(); }
 
+   private void clearForm(TextField title, TextArea desc, DatePicker date, TextField time, TextField duration,
+                          ToggleGroup prio, ComboBox<String> cat, TextField tags) {
+       title.clear(); desc.clear(); date.setValue(LocalDate.now());
+       time.setText("14:00"); duration.clear(); prio.selectToggle(prio.getToggles().get(1));
+       cat.setValue("Work");
+      tags.clear();
+  }
 
 
 
-      public StringProperty dateProperty() { return date; }
-      public String getDate() { return date.get(); }
 
+   static TableColumn<Task, Boolean> createDoneColumn() {
+       TableColumn<Task, Boolean> doneCol = new TableColumn<>("Done");
+       doneCol.setCellValueFactory(param -> param.getValue().doneProperty());
+       doneCol.setCellFactory(column -> new DoneCell());
+       doneCol.setEditable(true);
+       return doneCol;
+   }
 
 
+   // A checkbox bound to the doneProperty of the one task the cell shows, so a ticked
+   // box updates the task and a task ticked elsewhere updates its box without
+   // refreshing the table. The binding moves with the cell when it is reused and is
+   // dropped when the cell empties; CheckBoxTableCell kept it on an empty cell.
+   static class DoneCell extends TableCell<Task, Boolean> {
+       private final CheckBox checkBox = new CheckBox();
+       private BooleanProperty boundDone;
 
-      public StringProperty priorityProperty() { return priority; }
-      public String getPriority() { return priority.get(); }
+       DoneCell() {
+           setAlignment(Pos.CENTER);
+       }
 
+       @Override
+       protected void updateItem(Boolean item, boolean empty) {
+           super.updateItem(item, empty);
+           BooleanProperty done = null;
+           if (!empty && getIndex() >= 0 && getIndex() < getTableView().getItems().size()) {
+               done = getTableView().getItems().get(getIndex()).doneProperty();
+           }
+           if (done != boundDone) {
+               if (boundDone != null) {
+                   checkBox.selectedProperty().unbindBidirectional(boundDone);
+               }
+               boundDone = done;
+               if (done != null) {
+                   checkBox.selectedProperty().bindBidirectional(done);
+               }
+           }
+           if (done != null) {
+               checkBox.setDisable(!getTableView().isEditable() || !getTableColumn().isEditable());
+           }
+           setGraphic(done == null ? null : checkBox);
+       }
+   }
 
 
+   // Strikes through done tasks. Each cell listens to exactly one task's doneProperty
+   // at a time and moves that listener over when the cell is reused for another row.
+   static class TaskNameCell extends TableCell<Task, String> {
+       private static final String DONE_STYLE = "-fx-strikethrough: true; -fx-text-fill: gray;";
 
-      public StringProperty statusProperty() { return status; }
-      public String getStatus() { return status.get(); }
+       private final ChangeListener<Boolean> doneListener = (obs, wasDone, isNowDone) -> setDoneStyle(isNowDone);
+       private Task boundTask;
 
+       @Override
+       protected void updateItem(String item, boolean empty) {
+           super.updateItem(item, empty);
+           Task task = null;
+           if (!empty && item != null && getIndex() >= 0 && getIndex() < getTableView().getItems().size()) {
+               task = getTableView().getItems().get(getIndex());
+           }
+           if (task != boundTask) {
+               if (boundTask != null) {
+                   boundTask.doneProperty().removeListener(doneListener);
+               }
+               boundTask = task;
+               if (task != null) {
+                   task.doneProperty().addListener(doneListener);
+               }
+           }
+           setText(task == null ? null : item);
+           setDoneStyle(task != null && task.isDone());
+       }
 
+       private void setDoneStyle(boolean done) {
+           setStyle(done ? DONE_STYLE : "");
+       }
+   }
 
 
-      public BooleanProperty doneProperty() { return done; }
-  }
 }
 
 
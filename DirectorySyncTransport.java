@@ -0,0 +1,69 @@
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+// A sync "server" that is just a shared folder (a network drive, or a folder a
+// file-sync tool mirrors). Each node writes <root>/<node>/<seq>.dpsync and
+// writes each file under a temporary name before renaming it, so readers never
+// see half a batch. A published file is never replaced. Because a node's sequence numbers have no gaps, a fetch
+// probes for cursor + 1, cursor + 2… and never lists old files.
+public class DirectorySyncTransport implements SyncTransport {
+    private final Path root;
+
+    public DirectorySyncTransport(Path root) {
+        this.root = root;
+    }
+
+    @Override
+    public void publish(long node, long seq, byte[] data) throws IOException {
+        Path dir = root.resolve(Long.toHexString(node));
+        Files.createDirectories(dir);
+        Path target = dir.resolve(seq + ".dpsync");
+        // Only this node writes to its folder, so nothing can appear between this check and the rename.
+        if (Files.exists(target)) {
+            if (Arrays.equals(Files.readAllBytes(target), data)) {
+                return;
+            }
+            throw new IOException("Change set " + seq + " of node " + Long.toHexString(node) + " is already published");
+        }
+        Path tmp = dir.resolve(seq + ".tmp");
+        Files.write(tmp, data);
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public List<Batch> fetch(long self, Map<Long, Long> cursors) throws IOException {
+        List<Batch> batches = new ArrayList<>();
+        if (!Files.isDirectory(root)) {
+            return batches;
+        }
+        try (DirectoryStream<Path> nodes = Files.newDirectoryStream(root, Files::isDirectory)) {
+            for (Path dir : nodes) {
+                long node;
+                try {
+                    node = Long.parseUnsignedLong(dir.getFileName().toString(), 16);
+                } catch (NumberFormatException e) {
+                    continue; // not a node's log
+                }
+                if (node == self) {
+                    continue;
+                }
+                for (long seq = cursors.getOrDefault(node, -1L) + 1; ; seq++) {
+                    try {
+                        batches.add(new Batch(node, seq, Files.readAllBytes(dir.resolve(seq + ".dpsync"))));
+                    } catch (NoSuchFileException e) {
+                        break;
+                    }
+                }
+            }
+        }
+        return batches;
+    }
+}
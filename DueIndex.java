@@ -0,0 +1,163 @@
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+
+// Open tasks in smart-list order: priority (High, Medium, Low, then anything
+// else), then due date, then due time with all-day tasks last. A sorted set
+// holds one entry per open dated task. An add, a tick or an edit to the date,
+// time or priority moves a single entry in O(log n).
+//
+// Because priority leads the key, each priority's tasks form one run sorted by
+// date. A smart list is the same date window cut from each run in turn, so
+// opening one costs O(log n) plus the rows returned. Today is a query
+// parameter, not part of the state, so nothing has to be rebuilt at midnight.
+// Recurring tasks are left to RecurrenceIndex.
+public class DueIndex implements TaskListener {
+    public enum SmartList {
+        OVERDUE("Overdue"), TODAY("Due Today"), NEXT_7_DAYS("Next 7 Days");
+
+        private final String label;
+
+        SmartList(String label) {
+            this.label = label;
+        }
+
+        public String label() { return label; }
+
+        // First day in the list, inclusive; null for no lower bound.
+        LocalDate from(LocalDate today) {
+            return this == OVERDUE ? null : this == TODAY ? today : today.plusDays(1);
+        }
+
+        // Last day in the list, inclusive.
+        LocalDate to(LocalDate today) {
+            return this == OVERDUE ? today.minusDays(1) : this == TODAY ? today : today.plusDays(7);
+        }
+
+        public static SmartList forLabel(String label) {
+            for (SmartList list : values()) {
+                if (list.label.equals(label)) {
+                    return list;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final String[] PRIORITIES = { "High", "Medium", "Low" };
+    private static final int RANKS = PRIORITIES.length + 1;
+    private static final int ALL_DAY = 24 * 60;
+
+    // The smart-list order for any task, including occurrences kept outside the index.
+    public static final Comparator<Task> ORDER = Comparator.comparingInt((Task t) -> rank(t.getPriority()))
+            .thenComparing(t -> TaskIndex.parse(t.getDate()), Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparingInt(t -> minute(t.getTime()));
+
+    private static final class Entry implements Comparable<Entry> {
+        final Task task;
+        final int rank;
+        final long day;
+        final int minute;
+        final long seq;
+
+        Entry(Task task, int rank, long day, int minute, long seq) {
+            this.task = task;
+            this.rank = rank;
+            this.day = day;
+            this.minute = minute;
+            this.seq = seq;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int c = Integer.compare(rank, other.rank);
+            if (c == 0) {
+                c = Long.compare(day, other.day);
+            }
+            if (c == 0) {
+                c = Integer.compare(minute, other.minute);
+            }
+            return c != 0 ? c : Long.compare(seq, other.seq);
+        }
+    }
+
+    private final NavigableSet<Entry> order = new TreeSet<>();
+    private final Map<Task, Entry> entries = new IdentityHashMap<>();
+    private long nextSeq;
+
+    // Up to limit open tasks dated within the list's window, in smart-list order.
+    public List<Task> tasksIn(SmartList list, LocalDate today, Predicate<Task> filter, int limit) {
+        LocalDate from = list.from(today);
+        long fromDay = from == null ? Long.MIN_VALUE : from.toEpochDay();
+        long toDay = list.to(today).toEpochDay();
+        List<Task> result = new ArrayList<>(Math.min(limit, 256));
+        for (int rank = 0; rank < RANKS && result.size() < limit; rank++) {
+            Entry low = new Entry(null, rank, fromDay, Integer.MIN_VALUE, Long.MIN_VALUE);
+            Entry high = new Entry(null, rank, toDay, Integer.MAX_VALUE, Long.MAX_VALUE);
+            for (Entry entry : order.subSet(low, true, high, true)) {
+                if (filter.test(entry.task)) {
+                    result.add(entry.task);
+                    if (result.size() == limit) {
+                        break;
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void taskAdded(Task task) {
+        insert(task);
+    }
+
+    @Override
+    public void taskRemoved(Task task) {
+        remove(task);
+    }
+
+    @Override
+    public void taskChanged(Task task, TaskField field, Object oldValue, Object newValue) {
+        if (field == TaskField.DATE || field == TaskField.TIME || field == TaskField.PRIORITY || field == TaskField.DONE) {
+            remove(task);
+            insert(task);
+        }
+    }
+
+    private void insert(Task task) {
+        LocalDate date = TaskIndex.parse(task.getDate());
+        if (date == null || task.isDone() || task.getRecurrence() != null) {
+            return;
+        }
+        Entry entry = new Entry(task, rank(task.getPriority()), date.toEpochDay(), minute(task.getTime()), nextSeq++);
+        entries.put(task, entry);
+        order.add(entry);
+    }
+
+    private void remove(Task task) {
+        Entry entry = entries.remove(task);
+        if (entry != null) {
+            order.remove(entry);
+        }
+    }
+
+    static int rank(String priority) {
+        for (int i = 0; i < PRIORITIES.length; i++) {
+            if (PRIORITIES[i].equals(priority)) {
+                return i;
+            }
+        }
+        return PRIORITIES.length;
+    }
+
+    private static int minute(LocalTime time) {
+        return time == null ? ALL_DAY : time.getHour() * 60 + time.getMinute();
+    }
+}
@@ -0,0 +1,40 @@
+import java.util.function.LongSupplier;
+
+// Hybrid logical clock. A timestamp packs wall-clock milliseconds into the high
+// 48 bits and a counter into the low 16. Timestamps from one clock always
+// increase, and a clock that has seen a remote timestamp stays ahead of it, so
+// an edit made after receiving another always orders after it, even when the
+// machines' clocks disagree.
+public final class HybridClock {
+    private static final int COUNTER_BITS = 16;
+
+    private final LongSupplier wallClock;
+    private long last;
+
+    public HybridClock(LongSupplier wallClock) {
+        this.wallClock = wallClock;
+    }
+
+    // A timestamp for a local event.
+    public synchronized long now() {
+        last = Math.max(wall(), last + 1);
+        return last;
+    }
+
+    // Moves the clock past a timestamp received from another node.
+    public synchronized void observe(long remote) {
+        last = Math.max(wall(), Math.max(last, remote) + 1);
+    }
+
+    public synchronized long last() {
+        return last;
+    }
+
+    public static long millis(long timestamp) {
+        return timestamp >>> COUNTER_BITS;
+    }
+
+    private long wall() {
+        return wallClock.getAsLong() << COUNTER_BITS;
+    }
+}
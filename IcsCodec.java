@@ -0,0 +1,438 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// iCalendar (RFC 5545) import and export. Each VTODO and VEVENT becomes one
+// task record, keyed like TaskCodec's rows so TaskCodec.toTask builds the Task.
+// Other components (time zones, alarms, journals) are skipped. The reader
+// unfolds one content line at a time into a reused byte buffer, at the byte
+// level so a fold inside a multi-byte character is handled. It only makes
+// strings for the properties a task uses, so memory stays flat however large
+// the file.
+public final class IcsCodec {
+    private static final DateTimeFormatter BASIC_DATE = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final DateTimeFormatter BASIC_DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    private static final int FOLD_OCTETS = 75;
+
+    private IcsCodec() {
+    }
+
+    // ---- export ----
+
+    public static void appendHeader(StringBuilder out) {
+        appendLine(out, "BEGIN:VCALENDAR");
+        appendLine(out, "VERSION:2.0");
+        appendLine(out, "PRODID:-//Daily Planner//EN");
+    }
+
+    public static void appendFooter(StringBuilder out) {
+        appendLine(out, "END:VCALENDAR");
+    }
+
+    // The DTSTAMP for every component of one export.
+    public static String stamp() {
+        return LocalDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.SECONDS).format(BASIC_DATE_TIME) + "Z";
+    }
+
+    // Tasks are written as VTODOs with a floating DTSTART, plus DURATION and
+    // RRULE when they have one. RFC 5545 allows neither without a DTSTART, so an
+    // undated task gets neither. The category comes first in CATEGORIES and the
+    // tags follow.
+    public static void appendTodo(StringBuilder out, Task task, String stamp) {
+        appendLine(out, "BEGIN:VTODO");
+        appendLine(out, "UID:" + task.getUid());
+        appendLine(out, "DTSTAMP:" + stamp);
+        appendLine(out, "SUMMARY:" + escape(task.getName()));
+        LocalDate date = TaskIndex.parse(task.getDate());
+        if (date != null) {
+            appendLine(out, task.getTime() == null ? "DTSTART;VALUE=DATE:" + date.format(BASIC_DATE)
+                    : "DTSTART:" + date.atTime(task.getTime()).format(BASIC_DATE_TIME));
+            if (task.getDuration() > 0) {
+                appendLine(out, "DURATION:PT" + task.getDuration() + "M");
+            }
+            if (task.getRecurrence() != null) {
+                appendLine(out, "RRULE:" + task.getRecurrence().toRRule());
+            }
+        }
+        String priority = task.getPriority();
+        appendLine(out, "PRIORITY:" + ("High".equals(priority) ? 1 : "Low".equals(priority) ? 9 : 5));
+        appendLine(out, "STATUS:" + (task.isDone() ? "COMPLETED" : "NEEDS-ACTION"));
+        StringBuilder categories = new StringBuilder();
+        if (task.getCategory() != null) {
+            categories.append(escape(task.getCategory()));
+        }
+        if (task.getTags() != null) {
+            for (String tag : task.getTags().split(",")) {
+                if (!tag.isBlank()) {
+                    if (categories.length() > 0) {
+                        categories.append(',');
+                    }
+                    categories.append(escape(tag.trim()));
+                }
+            }
+        }
+        if (categories.length() > 0) {
+            appendLine(out, "CATEGORIES:" + categories);
+        }
+        if (task.getDescription() != null) {
+            appendLine(out, "DESCRIPTION:" + escape(task.getDescription()));
+        }
+        appendLine(out, "END:VTODO");
+    }
+
+    // Folds at 75 octets: CRLF then a space, never inside a character.
+    private static void appendLine(StringBuilder out, String line) {
+        int octets = 0;
+        for (int i = 0; i < line.length(); i++) {
+            char ch = line.charAt(i);
+            int width = ch < 0x80 ? 1 : ch < 0x800 ? 2 : Character.isHighSurrogate(ch) ? 4 : Character.isLowSurrogate(ch) ? 0 : 3;
+            if (octets + width > FOLD_OCTETS) {
+                out.append("\r\n ");
+                octets = 1;
+            }
+            out.append(ch);
+            octets += width;
+        }
+        out.append("\r\n");
+    }
+
+    private static String escape(String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            switch (ch) {
+                case '\\', ';', ',' -> sb.append('\\').append(ch);
+                case '\n' -> sb.append("\\n");
+                case '\r' -> { }
+                default -> sb.append(ch);
+            }
+        }
+        return sb.toString();
+    }
+
+    // ---- import ----
+
+    public static final class Reader {
+        private final InputStream in;
+        private final byte[] buffer = new byte[1 << 16];
+        private int pos;
+        private int limit;
+        private byte[] line = new byte[256];
+        private int length;
+
+        // Per-component state, reset at each BEGIN:VTODO or BEGIN:VEVENT.
+        private boolean inTask;
+        private boolean todo;
+        private int nested;
+        private String summary;
+        private String description;
+        private String start;
+        private String due;
+        private String end;
+        private String duration;
+        private String status;
+        private String rrule;
+        private int priority;
+        private boolean completed;
+        private final List<String> categories = new ArrayList<>();
+
+        public Reader(InputStream in) {
+            this.in = in;
+        }
+
+        // Next task record keyed by TaskCodec field name, or null at end of input.
+        public Map<String, String> next() throws IOException {
+            while (nextLine()) {
+                int colon = valueStart();
+                if (colon < 0) {
+                    continue;
+                }
+                if (is("BEGIN")) {
+                    if (!inTask && (valueIs(colon, "VTODO") || valueIs(colon, "VEVENT"))) {
+                        beginTask(valueIs(colon, "VTODO"));
+                    } else if (inTask) {
+                        nested++;
+                    }
+                } else if (is("END")) {
+                    if (inTask && nested > 0) {
+                        nested--;
+                    } else if (inTask) {
+                        inTask = false;
+                        return record();
+                    }
+                } else if (inTask && nested == 0) {
+                    property(colon);
+                }
+            }
+            return null;
+        }
+
+        private void beginTask(boolean isTodo) {
+            inTask = true;
+            todo = isTodo;
+            nested = 0;
+            summary = description = start = due = end = duration = status = rrule = null;
+            priority = 0;
+            completed = false;
+            categories.clear();
+        }
+
+        private void property(int colon) {
+            if (is("SUMMARY")) {
+                summary = unescape(value(colon));
+            } else if (is("DESCRIPTION")) {
+                description = unescape(value(colon));
+            } else if (is("DTSTART")) {
+                start = value(colon);
+            } else if (is("DUE")) {
+                due = value(colon);
+            } else if (is("DTEND")) {
+                end = value(colon);
+            } else if (is("DURATION")) {
+                duration = value(colon);
+            } else if (is("STATUS")) {
+                status = value(colon);
+            } else if (is("COMPLETED")) {
+                completed = true;
+            } else if (is("PRIORITY")) {
+                try {
+                    priority = Integer.parseInt(value(colon).trim());
+                } catch (NumberFormatException e) {
+                    priority = 0;
+                }
+            } else if (is("CATEGORIES")) {
+                splitCategories(value(colon));
+            } else if (is("RRULE")) {
+                rrule = value(colon);
+            }
+        }
+
+        private Map<String, String> record() {
+            Map<String, String> fields = new LinkedHashMap<>();
+            fields.put("name", summary);
+            String when = todo && due != null ? due : start;
+            LocalDateTime dateTime = parseDateTime(when);
+            LocalDate date = dateTime != null ? dateTime.toLocalDate() : parseDate(when);
+            fields.put("date", date == null ? null : date.toString());
+            fields.put("time", dateTime == null ? null : dateTime.toLocalTime().toString());
+            fields.put("priority", priority >= 1 && priority <= 4 ? "High" : priority == 5 ? "Medium"
+                    : priority >= 6 && priority <= 9 ? "Low" : null);
+            boolean done = completed || "COMPLETED".equalsIgnoreCase(status);
+            fields.put("done", String.valueOf(done));
+            fields.put("category", categories.isEmpty() ? null : categories.get(0));
+            fields.put("tags", categories.size() < 2 ? null : String.join(", ", categories.subList(1, categories.size())));
+            fields.put("description", description);
+            fields.put("duration", minutes(dateTime));
+            fields.put("recurrence", rrule);
+            return fields;
+        }
+
+        // From DURATION, or for an event from DTEND - DTSTART when both have a time.
+        private String minutes(LocalDateTime startTime) {
+            long minutes = 0;
+            if (duration != null) {
+                minutes = parseDuration(duration);
+            } else if (!todo && startTime != null) {
+                LocalDateTime endTime = parseDateTime(end);
+                if (endTime != null) {
+                    minutes = ChronoUnit.MINUTES.between(startTime, endTime);
+                }
+            }
+            return minutes > 0 ? String.valueOf(Math.min(minutes, Integer.MAX_VALUE)) : null;
+        }
+
+        private void splitCategories(String value) {
+            StringBuilder category = new StringBuilder();
+            for (int i = 0; i < value.length(); i++) {
+                char ch = value.charAt(i);
+                if (ch == '\\' && i + 1 < value.length()) {
+                    category.append(value.charAt(++i));
+                } else if (ch == ',') {
+                    addCategory(category);
+                } else {
+                    category.append(ch);
+                }
+            }
+            addCategory(category);
+        }
+
+        private void addCategory(StringBuilder category) {
+            String trimmed = category.toString().trim();
+            if (!trimmed.isEmpty()) {
+                categories.add(trimmed);
+            }
+            category.setLength(0);
+        }
+
+        // ---- content lines ----
+
+        // Reads the next logical line, joining folded continuations, into line[0, length).
+        private boolean nextLine() throws IOException {
+            length = 0;
+            int b = read();
+            if (b < 0) {
+                return false;
+            }
+            while (b >= 0) {
+                if (b == '\n') {
+                    int next = peek();
+                    if (next != ' ' && next != '\t') {
+                        break;
+                    }
+                    pos++; // a fold: drop the line break and the one whitespace after it
+                } else if (b != '\r') {
+                    if (length == line.length) {
+                        line = Arrays.copyOf(line, length * 2);
+                    }
+                    line[length++] = (byte) b;
+                }
+                b = read();
+            }
+            return true;
+        }
+
+        // Index of the ':' that ends the name and parameters, skipping quoted parameter values.
+        private int valueStart() {
+            boolean quoted = false;
+            for (int i = 0; i < length; i++) {
+                byte b = line[i];
+                if (b == '"') {
+                    quoted = !quoted;
+                } else if (b == ':' && !quoted) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        // Whether the property name (up to ';' or ':') is name, ignoring case.
+        private boolean is(String name) {
+            int n = name.length();
+            if (length <= n || (line[n] != ':' && line[n] != ';')) {
+                return false;
+            }
+            for (int i = 0; i < n; i++) {
+                if (Character.toUpperCase((char) line[i]) != name.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean valueIs(int colon, String value) {
+            int n = value.length();
+            if (length - colon - 1 != n) {
+                return false;
+            }
+            for (int i = 0; i < n; i++) {
+                if (Character.toUpperCase((char) line[colon + 1 + i]) != value.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private String value(int colon) {
+            return new String(line, colon + 1, length - colon - 1, StandardCharsets.UTF_8);
+        }
+
+        private int read() throws IOException {
+            if (pos == limit && !fill()) {
+                return -1;
+            }
+            return buffer[pos++] & 0xff;
+        }
+
+        private int peek() throws IOException {
+            if (pos == limit && !fill()) {
+                return -1;
+            }
+            return buffer[pos] & 0xff;
+        }
+
+        private boolean fill() throws IOException {
+            limit = in.read(buffer, 0, buffer.length);
+            pos = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return false;
+            }
+            return true;
+        }
+    }
+
+    // ---- values ----
+
+    private static String unescape(String text) {
+        if (text.indexOf('\\') < 0) {
+            return text;
+        }
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            if (ch == '\\' && i + 1 < text.length()) {
+                char escaped = text.charAt(++i);
+                sb.append(escaped == 'n' || escaped == 'N' ? '\n' : escaped);
+            } else {
+                sb.append(ch);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static LocalDate parseDate(String value) {
+        if (value == null || value.length() < 8) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value.substring(0, 8), BASIC_DATE);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    // A DATE-TIME value, converted from UTC to local time when it ends in Z.
+    // Times with a TZID are read as local wall-clock times.
+    private static LocalDateTime parseDateTime(String value) {
+        if (value == null || value.length() < 15 || value.charAt(8) != 'T') {
+            return null;
+        }
+        try {
+            LocalDateTime dateTime = LocalDateTime.parse(value.substring(0, 15), BASIC_DATE_TIME);
+            if (value.endsWith("Z")) {
+                dateTime = dateTime.atOffset(ZoneOffset.UTC).atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+            }
+            return dateTime;
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    // RFC 5545 durations such as PT1H30M, P1D or P2W, in minutes; 0 if unreadable.
+    private static long parseDuration(String value) {
+        String text = value.trim().toUpperCase(Locale.ROOT);
+        try {
+            if (text.endsWith("W")) {
+                int sign = text.startsWith("-") ? -1 : 1;
+                return sign * Long.parseLong(text.replaceAll("[^0-9]", "")) * 7 * 24 * 60;
+            }
+            return Duration.parse(text).toMinutes();
+        } catch (NumberFormatException | DateTimeParseException e) {
+            return 0;
+        }
+    }
+}
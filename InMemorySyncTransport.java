@@ -0,0 +1,43 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// An in-process stand-in for a sync server. Several SyncEngines in one JVM can
+// share an instance, which is enough to exercise replication and conflicts
+// without touching the disk.
+public class InMemorySyncTransport implements SyncTransport {
+    private final Map<Long, List<byte[]>> logs = new HashMap<>();
+
+    @Override
+    public synchronized void publish(long node, long seq, byte[] data) {
+        List<byte[]> log = logs.computeIfAbsent(node, n -> new ArrayList<>());
+        if (seq < log.size()) {
+            if (!Arrays.equals(log.get((int) seq), data)) {
+                throw new IllegalArgumentException("Change set " + seq + " of node " + Long.toHexString(node)
+                        + " is already published");
+            }
+        } else if (seq == log.size()) {
+            log.add(data);
+        } else {
+            throw new IllegalArgumentException("Gap in log of node " + Long.toHexString(node) + " at " + seq);
+        }
+    }
+
+    @Override
+    public synchronized List<Batch> fetch(long self, Map<Long, Long> cursors) {
+        List<Batch> batches = new ArrayList<>();
+        for (Map.Entry<Long, List<byte[]>> log : logs.entrySet()) {
+            long node = log.getKey();
+            if (node == self) {
+                continue;
+            }
+            List<byte[]> entries = log.getValue();
+            for (long seq = cursors.getOrDefault(node, -1L) + 1; seq < entries.size(); seq++) {
+                batches.add(new Batch(node, seq, entries.get((int) seq)));
+            }
+        }
+        return batches;
+    }
+}
@@ -0,0 +1,110 @@
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Per-month, per-day task counts split by priority, adjusted by one on every
+// add, remove, date or priority change. Rendering a month costs one array copy.
+// Recurring tasks are not counted here; their occurrences are added per query.
+public class OccupancyIndex implements TaskListener {
+    private static final int TOTAL = 0;
+    private static final int HIGH = 1;
+    private static final int MEDIUM = 2;
+    private static final int LOW = 3;
+    private static final int STRIDE = 4;
+
+    // Immutable copy of one month's counters.
+    public static final class MonthStats {
+        private static final MonthStats EMPTY = new MonthStats(new int[31 * STRIDE]);
+
+        private final int[] cells;
+
+        private MonthStats(int[] cells) {
+            this.cells = cells;
+        }
+
+        public int count(int day) { return cells[(day - 1) * STRIDE + TOTAL]; }
+        public int high(int day) { return cells[(day - 1) * STRIDE + HIGH]; }
+        public int medium(int day) { return cells[(day - 1) * STRIDE + MEDIUM]; }
+        public int low(int day) { return cells[(day - 1) * STRIDE + LOW]; }
+
+        // Bit (day - 1) is set for each day that has at least one task.
+        public int occupancyBits() {
+            int bits = 0;
+            for (int day = 1; day <= 31; day++) {
+                if (count(day) > 0) {
+                    bits |= 1 << (day - 1);
+                }
+            }
+            return bits;
+        }
+    }
+
+    private final Map<YearMonth, int[]> months = new HashMap<>();
+
+    public MonthStats month(YearMonth month) {
+        int[] cells = months.get(month);
+        return cells == null ? MonthStats.EMPTY : new MonthStats(cells.clone());
+    }
+
+    // Counters for a month with the given occurrences of recurring tasks added on top.
+    public MonthStats month(YearMonth month, Iterable<? extends List<Task>> occurrences) {
+        int[] cells = months.get(month);
+        cells = cells == null ? new int[31 * STRIDE] : cells.clone();
+        for (List<Task> day : occurrences) {
+            for (Task occurrence : day) {
+                add(cells, TaskIndex.parse(occurrence.getDate()), occurrence.getPriority(), 1);
+            }
+        }
+        return new MonthStats(cells);
+    }
+
+    @Override
+    public void taskAdded(Task task) {
+        if (task.getRecurrence() == null) {
+            adjust(TaskIndex.parse(task.getDate()), task.getPriority(), 1);
+        }
+    }
+
+    @Override
+    public void taskRemoved(Task task) {
+        if (task.getRecurrence() == null) {
+            adjust(TaskIndex.parse(task.getDate()), task.getPriority(), -1);
+        }
+    }
+
+    @Override
+    public void taskChanged(Task task, TaskField field, Object oldValue, Object newValue) {
+        if (task.getRecurrence() != null) {
+            return;
+        }
+        if (field == TaskField.DATE) {
+            adjust(TaskIndex.parse((String) oldValue), task.getPriority(), -1);
+            adjust(TaskIndex.parse((String) newValue), task.getPriority(), 1);
+        } else if (field == TaskField.PRIORITY) {
+            LocalDate date = TaskIndex.parse(task.getDate());
+            adjust(date, (String) oldValue, -1);
+            adjust(date, (String) newValue, 1);
+        }
+    }
+
+    private void adjust(LocalDate date, String priority, int delta) {
+        if (date != null) {
+            add(months.computeIfAbsent(YearMonth.from(date), m -> new int[31 * STRIDE]), date, priority, delta);
+        }
+    }
+
+    private static void add(int[] cells, LocalDate date, String priority, int delta) {
+        int base = (date.getDayOfMonth() - 1) * STRIDE;
+        cells[base + TOTAL] += delta;
+        cells[base + priorityColumn(priority)] += delta;
+    }
+
+    private static int priorityColumn(String priority) {
+        if ("High".equals(priority)) {
+            return HIGH;
+        }
+        return "Low".equals(priority) ? LOW : MEDIUM;
+    }
+}
@@ -0,0 +1,202 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Timers for the app's hot paths. Each probe keeps a log2 histogram of its
+// durations in nanoseconds, with its count, total and max. Recording only
+// touches the preallocated counters. A JFR event is created only while a
+// recording has the event enabled. The scene node count and heap use are kept
+// as gauges next to the timers. Everything is readable over JMX, and the app
+// shows it in its diagnostics overlay.
+public class PerfMonitor implements PerfMonitorMXBean {
+    public enum Probe {
+        CALENDAR_VIEW("calendarView"),
+        MONTH_GRID("monthGrid"),
+        DAY_VIEW("dayView"),
+        WEEK_VIEW("weekView"),
+        YEAR_VIEW("yearView"),
+        AGENDA("agenda"),
+        TABLE_REFRESH("tableRefresh"),
+        TASK_SAVE("taskSave");
+
+        final String key;
+
+        Probe(String key) {
+            this.key = key;
+        }
+    }
+
+    @Name("dailyplanner.ProbeTiming")
+    @Label("Probe Timing")
+    @Category("Daily Planner")
+    @Description("One timed run of an instrumented view update or save")
+    static final class ProbeEvent extends Event {
+        @Label("Probe")
+        String probe;
+
+        @Label("Elapsed")
+        @Timespan(Timespan.NANOSECONDS)
+        long elapsed;
+    }
+
+    private static final EventType PROBE_EVENT = EventType.getEventType(ProbeEvent.class);
+    private static final int BUCKETS = 40; // the last bucket holds everything from 2^39 ns (about 9 minutes) up
+    private static final Probe[] PROBES = Probe.values();
+
+    // Per probe: BUCKETS histogram counts, then count, total nanos and max nanos.
+    private static final int STRIDE = BUCKETS + 3;
+    private static final int COUNT = BUCKETS;
+    private static final int TOTAL = BUCKETS + 1;
+    private static final int MAX = BUCKETS + 2;
+
+    private final AtomicLongArray counters = new AtomicLongArray(PROBES.length * STRIDE);
+    private volatile int sceneNodes;
+
+    public long start() {
+        return System.nanoTime();
+    }
+
+    public void stop(Probe probe, long startNanos) {
+        long nanos = System.nanoTime() - startNanos;
+        int base = probe.ordinal() * STRIDE;
+        counters.incrementAndGet(base + bucket(nanos));
+        counters.incrementAndGet(base + COUNT);
+        counters.addAndGet(base + TOTAL, nanos);
+        counters.accumulateAndGet(base + MAX, nanos, Math::max);
+        if (PROBE_EVENT.isEnabled()) {
+            ProbeEvent event = new ProbeEvent();
+            event.probe = probe.key;
+            event.elapsed = nanos;
+            event.commit();
+        }
+    }
+
+    public void setSceneNodes(int count) {
+        sceneNodes = count;
+    }
+
+    // Registers this monitor with the platform MBean server; a second
+    // registration or a JMX failure only costs the remote view.
+    public void registerMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName("DailyPlanner:type=PerfMonitor"));
+        } catch (JMException e) {
+            System.err.println("Could not register performance MBean: " + e);
+        }
+    }
+
+    public long count(Probe probe) {
+        return counters.get(probe.ordinal() * STRIDE + COUNT);
+    }
+
+    public double meanMillis(Probe probe) {
+        long count = count(probe);
+        return count == 0 ? 0 : counters.get(probe.ordinal() * STRIDE + TOTAL) / (count * 1e6);
+    }
+
+    public double maxMillis(Probe probe) {
+        return counters.get(probe.ordinal() * STRIDE + MAX) / 1e6;
+    }
+
+    // The upper bound of the bucket holding the given percentile, so it may
+    // overstate the true value by up to 2x.
+    public double percentileMillis(Probe probe, double percentile) {
+        long count = count(probe);
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(count * percentile / 100);
+        int base = probe.ordinal() * STRIDE;
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counters.get(base + i);
+            if (seen >= rank) {
+                return Math.min(1L << (i + 1), counters.get(base + MAX)) / 1e6;
+            }
+        }
+        return maxMillis(probe);
+    }
+
+    // One line per probe that has run, then the gauges.
+    public String summary() {
+        StringBuilder out = new StringBuilder();
+        for (Probe probe : PROBES) {
+            long count = count(probe);
+            if (count > 0) {
+                out.append(String.format("%-13s n=%-6d mean %7.2f  p99 %7.2f  max %7.2f ms%n", probe.key, count,
+                        meanMillis(probe), percentileMillis(probe, 99), maxMillis(probe)));
+            }
+        }
+        out.append(String.format("nodes %d   heap %d MB", sceneNodes, getHeapUsedBytes() >> 20));
+        return out.toString();
+    }
+
+    @Override
+    public Map<String, Long> getCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Probe probe : PROBES) {
+            counts.put(probe.key, count(probe));
+        }
+        return counts;
+    }
+
+    @Override
+    public Map<String, Double> getMeanMillis() {
+        Map<String, Double> means = new LinkedHashMap<>();
+        for (Probe probe : PROBES) {
+            means.put(probe.key, meanMillis(probe));
+        }
+        return means;
+    }
+
+    @Override
+    public Map<String, Double> getP99Millis() {
+        Map<String, Double> p99 = new LinkedHashMap<>();
+        for (Probe probe : PROBES) {
+            p99.put(probe.key, percentileMillis(probe, 99));
+        }
+        return p99;
+    }
+
+    @Override
+    public Map<String, Double> getMaxMillis() {
+        Map<String, Double> max = new LinkedHashMap<>();
+        for (Probe probe : PROBES) {
+            max.put(probe.key, maxMillis(probe));
+        }
+        return max;
+    }
+
+    @Override
+    public int getSceneNodes() {
+        return sceneNodes;
+    }
+
+    @Override
+    public long getHeapUsedBytes() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, 0);
+        }
+    }
+
+    private static int bucket(long nanos) {
+        return nanos <= 1 ? 0 : Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(nanos));
+    }
+}
@@ -0,0 +1,20 @@
+import java.util.Map;
+
+// The JMX view of PerfMonitor, registered as DailyPlanner:type=PerfMonitor.
+// Timings are keyed by probe name and given in milliseconds.
+public interface PerfMonitorMXBean {
+    Map<String, Long> getCounts();
+
+    Map<String, Double> getMeanMillis();
+
+    // Upper bound of the histogram bucket that holds the 99th percentile.
+    Map<String, Double> getP99Millis();
+
+    Map<String, Double> getMaxMillis();
+
+    int getSceneNodes();
+
+    long getHeapUsedBytes();
+
+    void reset();
+}
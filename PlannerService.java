@@ -0,0 +1,468 @@
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+// UI-free planner core: owns the task and category lists and the indexes over
+// them, and answers every query the views need. It becomes each task's
+// Task.Observer and fans field changes out to its TaskListeners, so the indexes
+// and the store never register per-task listeners of their own, and no task
+// needs a JavaFX property just to be watched.
+//
+// Queries take the read lock and return copies, so they may be called from any
+// thread. Mutations take the write lock; when the lists are shown in the UI they
+// must still be made on the FX thread.
+public class PlannerService {
+    private final ObservableList<Task> tasks = FXCollections.observableArrayList();
+    private final ObservableList<String> categories = FXCollections.observableArrayList();
+    private final TaskIndex taskIndex = new TaskIndex();
+    private final CategoryIndex categoryIndex = new CategoryIndex();
+    private final OccupancyIndex occupancyIndex = new OccupancyIndex();
+    private final ScheduleIndex scheduleIndex = new ScheduleIndex();
+    private final SearchIndex searchIndex = new SearchIndex();
+    private final DueIndex dueIndex = new DueIndex();
+    private final RecurrenceIndex recurrenceIndex;
+    private final List<TaskListener> listeners = new CopyOnWriteArrayList<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Task.Observer fieldObserver = this::fieldChanged;
+    private final Task.Observer occurrenceObserver = (task, field, o, n, write) -> {
+        if (field == TaskField.DONE) {
+            occurrenceDone(task, (Boolean) n, write);
+        } else {
+            write.run();
+        }
+    };
+
+    private static final Comparator<Task> BY_TIME = Comparator.comparing(Task::getTime);
+
+    public PlannerService(Collection<String> initialCategories) {
+        categories.setAll(initialCategories);
+        recurrenceIndex = new RecurrenceIndex(occurrenceObserver);
+        listeners.add(taskIndex);
+        listeners.add(categoryIndex);
+        listeners.add(occupancyIndex);
+        listeners.add(scheduleIndex);
+        listeners.add(searchIndex);
+        listeners.add(dueIndex);
+        listeners.add(recurrenceIndex);
+        tasks.addListener((ListChangeListener<Task>) this::tasksChanged);
+    }
+
+    // The live lists, for binding views. Prefer the mutators below for changes.
+    public ObservableList<Task> tasks() { return tasks; }
+    public ObservableList<String> categories() { return categories; }
+
+    public void addListener(TaskListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(TaskListener listener) {
+        listeners.remove(listener);
+    }
+
+    // ---- mutations ----
+
+    public void addTask(Task task) {
+        lock.writeLock().lock();
+        try {
+            tasks.add(task);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // One list change for the whole batch, so listeners and views react once.
+    public void addTasks(Collection<? extends Task> batch) {
+        lock.writeLock().lock();
+        try {
+            tasks.addAll(batch);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean removeTask(Task task) {
+        lock.writeLock().lock();
+        try {
+            return tasks.remove(task);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // One list change for the whole batch, in a single pass over the list.
+    public void removeTasks(Collection<? extends Task> batch) {
+        Set<Task> doomed = Collections.newSetFromMap(new IdentityHashMap<>());
+        doomed.addAll(batch);
+        lock.writeLock().lock();
+        try {
+            tasks.removeAll(doomed);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Sets one field through its setter, so listeners see an ordinary edit.
+    public void setField(Task task, TaskField field, Object value) {
+        switch (field) {
+            case NAME -> task.setName((String) value);
+            case DATE -> task.setDate((String) value);
+            case PRIORITY -> task.setPriority((String) value);
+            case DONE -> task.setDone((Boolean) value);
+            case CATEGORY -> task.setCategory((String) value);
+            case TIME -> task.setTime((LocalTime) value);
+            case DURATION -> task.setDuration(((Number) value).intValue());
+            case DESCRIPTION -> task.setDescription((String) value);
+            case TAGS -> task.setTags((String) value);
+        }
+    }
+
+    // Ticks one occurrence of a recurring task through its generated Task.
+    public void setOccurrenceDone(Task series, LocalDate date, boolean done) {
+        for (Task occurrence : recurrenceIndex.occurrencesOn(date)) {
+            if (occurrence.getSeries() == series) {
+                occurrence.setDone(done);
+                return;
+            }
+        }
+    }
+
+    public void replaceAll(Collection<? extends Task> newTasks, Collection<String> newCategories) {
+        lock.writeLock().lock();
+        try {
+            categories.setAll(newCategories);
+            tasks.setAll(newTasks);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean addCategory(String category) {
+        lock.writeLock().lock();
+        try {
+            if (category == null || category.isBlank() || categories.contains(category)) {
+                return false;
+            }
+            return categories.add(category);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean removeCategory(String category) {
+        lock.writeLock().lock();
+        try {
+            return categories.remove(category);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ---- queries ----
+
+    // Day queries include the occurrences of recurring tasks; only the months
+    // they touch are expanded, and those stay cached until a series changes.
+
+    public List<Task> tasksOn(LocalDate date) {
+        lock.readLock().lock();
+        try {
+            List<Task> result = new ArrayList<>(taskIndex.tasksOn(date));
+            result.addAll(recurrenceIndex.occurrencesOn(date));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Tasks dated from..to inclusive, in date order.
+    public List<Task> tasksBetween(LocalDate from, LocalDate to) {
+        lock.readLock().lock();
+        try {
+            NavigableMap<LocalDate, List<Task>> days = new TreeMap<>(taskIndex.tasksBetween(from, to));
+            if (!recurrenceIndex.isEmpty()) {
+                for (YearMonth month = YearMonth.from(from); !month.isAfter(YearMonth.from(to)); month = month.plusMonths(1)) {
+                    for (Map.Entry<LocalDate, List<Task>> day : recurrenceIndex.occurrencesIn(month).entrySet()) {
+                        if (!day.getKey().isBefore(from) && !day.getKey().isAfter(to)) {
+                            days.merge(day.getKey(), day.getValue(), PlannerService::concat);
+                        }
+                    }
+                }
+            }
+            List<Task> result = new ArrayList<>();
+            for (List<Task> day : days.values()) {
+                result.addAll(day);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // A day's tasks for display: timed tasks in start order, then the all-day ones.
+    public List<Task> scheduleOn(LocalDate date) {
+        lock.readLock().lock();
+        try {
+            List<Task> result = new ArrayList<>(scheduleIndex.timedTasksOn(date));
+            for (Task occurrence : recurrenceIndex.occurrencesOn(date)) {
+                if (occurrence.getTime() != null) {
+                    result.add(occurrence);
+                }
+            }
+            result.sort(BY_TIME);
+            result.addAll(allDayTasksOn(date));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Timed tasks on a day that overlap [fromMinute, toMinute), minutes counted from midnight.
+    public List<Task> tasksOverlapping(LocalDate date, int fromMinute, int toMinute) {
+        lock.readLock().lock();
+        try {
+            List<Task> result = scheduleIndex.overlapping(date, fromMinute, toMinute);
+            List<Task> occurrences = recurrenceIndex.occurrencesOn(date);
+            if (occurrences.isEmpty()) {
+                return result;
+            }
+            result = new ArrayList<>(result);
+            for (Task occurrence : occurrences) {
+                if (ScheduleIndex.overlaps(occurrence, fromMinute, toMinute)) {
+                    result.add(occurrence);
+                }
+            }
+            result.sort(BY_TIME);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Tasks on a day with no due time.
+    public List<Task> allDayTasksOn(LocalDate date) {
+        lock.readLock().lock();
+        try {
+            List<Task> result = new ArrayList<>();
+            for (Task task : taskIndex.tasksOn(date)) {
+                if (task.getTime() == null) {
+                    result.add(task);
+                }
+            }
+            for (Task occurrence : recurrenceIndex.occurrencesOn(date)) {
+                if (occurrence.getTime() == null) {
+                    result.add(occurrence);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Task> tasksInCategory(String category) {
+        lock.readLock().lock();
+        try {
+            return List.copyOf(categoryIndex.tasksIn(category));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Task> tasksWithStatus(boolean done) {
+        lock.readLock().lock();
+        try {
+            List<Task> result = new ArrayList<>();
+            for (Task task : tasks) {
+                if (task.isDone() == done) {
+                    result.add(task);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Live list of one category's tasks, for binding the task table.
+    public ObservableList<Task> categoryView(String category) {
+        return categoryCounts(category).tasks();
+    }
+
+    // Live open/done counters for a category, or for all tasks when category is null.
+    public CategoryIndex.Bucket categoryCounts(String category) {
+        if (category == null) {
+            return categoryIndex.all();
+        }
+        lock.writeLock().lock(); // may create the bucket
+        try {
+            return categoryIndex.bucket(category);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Up to limit tasks whose name, description or tags contain a word starting
+    // with each term of the query; restricted to one category unless it is null.
+    public List<Task> search(String query, String category, int limit) {
+        lock.readLock().lock();
+        try {
+            return searchIndex.search(query, t -> category == null || category.equals(t.getCategory()), limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Up to limit open tasks in a smart list, by priority then due date;
+    // restricted to one category unless it is null. Today and the coming days
+    // include the occurrences of recurring tasks.
+    public List<Task> smartList(DueIndex.SmartList list, LocalDate today, String category, int limit) {
+        lock.readLock().lock();
+        try {
+            Predicate<Task> inCategory = t -> category == null || category.equals(t.getCategory());
+            List<Task> result = dueIndex.tasksIn(list, today, inCategory, limit);
+            if (list == DueIndex.SmartList.OVERDUE || recurrenceIndex.isEmpty()) {
+                return result;
+            }
+            boolean merged = false;
+            for (LocalDate date = list.from(today); !date.isAfter(list.to(today)); date = date.plusDays(1)) {
+                for (Task occurrence : recurrenceIndex.occurrencesOn(date)) {
+                    if (!occurrence.isDone() && inCategory.test(occurrence)) {
+                        result.add(occurrence);
+                        merged = true;
+                    }
+                }
+            }
+            if (merged) {
+                result.sort(DueIndex.ORDER);
+                if (result.size() > limit) {
+                    result = new ArrayList<>(result.subList(0, limit));
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public String agendaText(LocalDate date) {
+        StringBuilder sb = new StringBuilder("Tasks on " + date + ":\n");
+        for (Task t : tasksOn(date)) {
+            sb.append("- ").append(t.getName()).append("\n");
+        }
+        return sb.toString();
+    }
+
+    // Bit (day - 1) is set for each day of the month that has at least one task.
+    public int monthOccupancy(YearMonth month) {
+        return monthStats(month).occupancyBits();
+    }
+
+    // Per-day task counts and priority mix for one month.
+    public OccupancyIndex.MonthStats monthStats(YearMonth month) {
+        lock.readLock().lock();
+        try {
+            return recurrenceIndex.isEmpty() ? occupancyIndex.month(month)
+                    : occupancyIndex.month(month, recurrenceIndex.occurrencesIn(month).values());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ---- change fan-out ----
+
+    private void tasksChanged(ListChangeListener.Change<? extends Task> change) {
+        lock.writeLock().lock();
+        try {
+            while (change.next()) {
+                if (change.wasPermutated() || change.wasUpdated()) {
+                    continue;
+                }
+                for (Task removed : change.getRemoved()) {
+                    detach(removed);
+                    for (TaskListener listener : listeners) {
+                        listener.taskRemoved(removed);
+                    }
+                }
+                for (Task added : change.getAddedSubList()) {
+                    attach(added);
+                    for (TaskListener listener : listeners) {
+                        listener.taskAdded(added);
+                    }
+                }
+            }
+            changeComplete();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void attach(Task task) {
+        task.setObserver(fieldObserver);
+    }
+
+    private void detach(Task task) {
+        task.setObserver(null);
+    }
+
+    private void occurrenceDone(Task occurrence, boolean done, Runnable write) {
+        Task series = occurrence.getSeries();
+        LocalDate date = TaskIndex.parse(occurrence.getDate());
+        lock.writeLock().lock();
+        try {
+            write.run();
+            if (series.setOccurrenceDone(date, done)) {
+                for (TaskListener listener : listeners) {
+                    listener.occurrenceChanged(series, date, done);
+                }
+                changeComplete();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void changeComplete() {
+        for (TaskListener listener : listeners) {
+            listener.changeComplete();
+        }
+    }
+
+    private static List<Task> concat(List<Task> a, List<Task> b) {
+        List<Task> both = new ArrayList<>(a);
+        both.addAll(b);
+        return both;
+    }
+
+    // The new value is stored under the write lock, so a query on another thread
+    // sees it only together with the index updates it causes.
+    private void fieldChanged(Task task, TaskField field, Object oldValue, Object newValue, Runnable write) {
+        lock.writeLock().lock();
+        try {
+            write.run();
+            for (TaskListener listener : listeners) {
+                listener.taskChanged(task, field, oldValue, newValue);
+            }
+            changeComplete();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+// The recurring tasks, and their occurrences expanded one month at a time as
+// the calendar asks for them. Each expanded month is cached until a recurring
+// task is added, removed or edited. Occurrences are plain Tasks that are not in
+// the task list. Their done flag is stored on the series, one date per ticked
+// occurrence.
+public class RecurrenceIndex implements TaskListener {
+    private static final int CACHED_MONTHS = 13; // a year view plus the month being edited
+
+    private final Set<Task> series = new LinkedHashSet<>();
+    private final Task.Observer occurrenceObserver;
+    private final Map<YearMonth, Map<LocalDate, List<Task>>> months =
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<YearMonth, Map<LocalDate, List<Task>>> eldest) {
+                    return size() > CACHED_MONTHS;
+                }
+            };
+
+    // occurrenceObserver observes every occurrence created, so ticking one off reaches the planner.
+    public RecurrenceIndex(Task.Observer occurrenceObserver) {
+        this.occurrenceObserver = occurrenceObserver;
+    }
+
+    public synchronized boolean isEmpty() {
+        return series.isEmpty();
+    }
+
+    // Occurrences in a month, by date. Synchronized because queries share the cache.
+    public synchronized Map<LocalDate, List<Task>> occurrencesIn(YearMonth month) {
+        if (series.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return months.computeIfAbsent(month, this::expand);
+    }
+
+    public List<Task> occurrencesOn(LocalDate date) {
+        return occurrencesIn(YearMonth.from(date)).getOrDefault(date, Collections.emptyList());
+    }
+
+    @Override
+    public void taskAdded(Task task) {
+        if (task.getRecurrence() != null) {
+            synchronized (this) {
+                series.add(task);
+                months.clear();
+            }
+        }
+    }
+
+    @Override
+    public void taskRemoved(Task task) {
+        if (task.getRecurrence() != null) {
+            synchronized (this) {
+                series.remove(task);
+                months.clear();
+            }
+        }
+    }
+
+    @Override
+    public void taskChanged(Task task, TaskField field, Object oldValue, Object newValue) {
+        if (task.getRecurrence() != null && field != TaskField.DONE) {
+            synchronized (this) {
+                months.clear();
+            }
+        }
+    }
+
+    private Map<LocalDate, List<Task>> expand(YearMonth month) {
+        Map<LocalDate, List<Task>> byDate = new TreeMap<>();
+        for (Task task : series) {
+            LocalDate start = TaskIndex.parse(task.getDate());
+            if (start == null) {
+                continue;
+            }
+            for (LocalDate date : task.getRecurrence().occurrencesBetween(start, month.atDay(1), month.atEndOfMonth())) {
+                byDate.computeIfAbsent(date, d -> new ArrayList<>()).add(occurrence(task, date));
+            }
+        }
+        return byDate;
+    }
+
+    private Task occurrence(Task task, LocalDate date) {
+        boolean done = task.isOccurrenceDone(date);
+        Task occurrence = new Task(task.getName(), date.toString(), task.getPriority(),
+                done ? "Done" : "Pending", task.getCategory(), task.getTime(), task.getDuration());
+        occurrence.setDescription(task.getDescription());
+        occurrence.setTags(task.getTags());
+        occurrence.setSeries(task);
+        occurrence.setDone(done);
+        occurrence.setObserver(occurrenceObserver);
+        return occurrence;
+    }
+}
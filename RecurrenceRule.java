@@ -0,0 +1,304 @@
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+// How a task repeats: every interval days, weeks (on the given days) or months,
+// until an end date, for a number of occurrences, or forever. Occurrences are
+// computed for a window on demand, so the cost depends on the window's length and
+// not on how many occurrences the rule has in total. Rules are immutable.
+public final class RecurrenceRule {
+    public enum Frequency { DAILY, WEEKLY, MONTHLY }
+
+    private static final String[] DAY_CODES = {"MO", "TU", "WE", "TH", "FR", "SA", "SU"};
+    private static final int MONTHLY_SEARCH_STEPS = 12 * 9; // covers the eight-year leap gap around 2100
+
+    private final Frequency frequency;
+    private final int interval;
+    private final Set<DayOfWeek> days;
+    private final LocalDate until;
+    private final int count;
+
+    // Date of the last counted occurrence for the series start it was computed for.
+    private volatile LocalDate[] lastByCount;
+
+    // days is only used by WEEKLY rules, and dropped from others; empty means the
+    // start date's weekday. until (inclusive) may be null and count may be 0 for
+    // an open-ended rule.
+    public RecurrenceRule(Frequency frequency, int interval, Set<DayOfWeek> days, LocalDate until, int count) {
+        if (frequency == null || interval < 1 || count < 0) {
+            throw new IllegalArgumentException("Invalid recurrence: " + frequency + " every " + interval + ", count " + count);
+        }
+        this.frequency = frequency;
+        this.interval = interval;
+        this.days = frequency != Frequency.WEEKLY || days == null || days.isEmpty()
+                ? Collections.emptySet() : Collections.unmodifiableSet(EnumSet.copyOf(days));
+        this.until = until;
+        this.count = count;
+    }
+
+    public Frequency getFrequency() { return frequency; }
+    public int getInterval() { return interval; }
+    public Set<DayOfWeek> getDays() { return days; }
+    public LocalDate getUntil() { return until; }
+    public int getCount() { return count; }
+
+    // Occurrences of a series that starts on start, from..to inclusive, in date order.
+    public List<LocalDate> occurrencesBetween(LocalDate start, LocalDate from, LocalDate to) {
+        LocalDate end = to;
+        if (until != null && until.isBefore(end)) {
+            end = until;
+        }
+        if (count > 0) {
+            LocalDate last = lastByCount(start);
+            if (last.isBefore(end)) {
+                end = last;
+            }
+        }
+        return expand(start, from.isBefore(start) ? start : from, end);
+    }
+
+    // The first occurrence of a series that starts on start falling on or after
+    // from, or null when the series has ended by then. Computed directly rather
+    // than by expanding a window, so it costs the same however far ahead it is.
+    public LocalDate nextOccurrence(LocalDate start, LocalDate from) {
+        LocalDate next = firstFrom(start, from.isBefore(start) ? start : from);
+        if (next == null || (until != null && next.isAfter(until))
+                || (count > 0 && next.isAfter(lastByCount(start)))) {
+            return null;
+        }
+        return next;
+    }
+
+    private LocalDate firstFrom(LocalDate start, LocalDate from) {
+        switch (frequency) {
+            case DAILY -> {
+                long offset = ChronoUnit.DAYS.between(start, from);
+                return start.plusDays((offset + interval - 1) / interval * interval);
+            }
+            case WEEKLY -> {
+                Set<DayOfWeek> on = days.isEmpty() ? EnumSet.of(start.getDayOfWeek()) : days;
+                LocalDate firstWeek = start.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                LocalDate week = from.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                long behind = ChronoUnit.WEEKS.between(firstWeek, week) % interval;
+                LocalDate date = from;
+                if (behind != 0) {
+                    week = week.plusWeeks(interval - behind);
+                    date = week;
+                }
+                // The rest of this repeating week, else the whole of the next one.
+                for (; date.isBefore(week.plusWeeks(1)); date = date.plusDays(1)) {
+                    if (on.contains(date.getDayOfWeek())) {
+                        return date;
+                    }
+                }
+                for (date = week.plusWeeks(interval); ; date = date.plusDays(1)) {
+                    if (on.contains(date.getDayOfWeek())) {
+                        return date;
+                    }
+                }
+            }
+            case MONTHLY -> {
+                YearMonth first = YearMonth.from(start);
+                YearMonth month = YearMonth.from(from);
+                long behind = ChronoUnit.MONTHS.between(first, month) % interval;
+                if (behind != 0) {
+                    month = month.plusMonths(interval - behind);
+                }
+                // Skips months too short for the start's day; within a few years
+                // every such series reaches a long enough month (Feb 29 the longest).
+                for (int step = 0; step < MONTHLY_SEARCH_STEPS; step++, month = month.plusMonths(interval)) {
+                    if (start.getDayOfMonth() <= month.lengthOfMonth()) {
+                        LocalDate date = month.atDay(start.getDayOfMonth());
+                        if (!date.isBefore(from)) {
+                            return date;
+                        }
+                    }
+                }
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private List<LocalDate> expand(LocalDate start, LocalDate from, LocalDate to) {
+        List<LocalDate> dates = new ArrayList<>();
+        if (from.isAfter(to)) {
+            return dates;
+        }
+        switch (frequency) {
+            case DAILY -> {
+                long offset = ChronoUnit.DAYS.between(start, from);
+                LocalDate date = start.plusDays((offset + interval - 1) / interval * interval);
+                for (; !date.isAfter(to); date = date.plusDays(interval)) {
+                    dates.add(date);
+                }
+            }
+            case WEEKLY -> {
+                Set<DayOfWeek> on = days.isEmpty() ? EnumSet.of(start.getDayOfWeek()) : days;
+                LocalDate firstWeek = start.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+                    if (on.contains(date.getDayOfWeek())) {
+                        LocalDate week = date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                        if (ChronoUnit.WEEKS.between(firstWeek, week) % interval == 0) {
+                            dates.add(date);
+                        }
+                    }
+                }
+            }
+            case MONTHLY -> {
+                // Months too short for the start's day of month are skipped, not clamped.
+                YearMonth first = YearMonth.from(start);
+                for (YearMonth month = YearMonth.from(from); !month.isAfter(YearMonth.from(to)); month = month.plusMonths(1)) {
+                    if (ChronoUnit.MONTHS.between(first, month) % interval == 0
+                            && start.getDayOfMonth() <= month.lengthOfMonth()) {
+                        LocalDate date = month.atDay(start.getDayOfMonth());
+                        if (!date.isBefore(from) && !date.isAfter(to)) {
+                            dates.add(date);
+                        }
+                    }
+                }
+            }
+        }
+        return dates;
+    }
+
+    // Walks the series a year at a time; done once per start date and then cached.
+    private LocalDate lastByCount(LocalDate start) {
+        LocalDate[] cached = lastByCount;
+        if (cached != null && cached[0].equals(start)) {
+            return cached[1];
+        }
+        int seen = 0;
+        LocalDate last = start;
+        for (LocalDate from = start; ; from = from.plusYears(1)) {
+            List<LocalDate> chunk = expand(start, from, from.plusYears(1).minusDays(1));
+            if (seen + chunk.size() >= count) {
+                last = chunk.get(count - seen - 1);
+                break;
+            }
+            seen += chunk.size();
+        }
+        lastByCount = new LocalDate[] {start, last};
+        return last;
+    }
+
+    // RFC 5545 RRULE-style text, e.g. "FREQ=WEEKLY;INTERVAL=1;BYDAY=MO,WE;UNTIL=2026-12-31".
+    // UNTIL is an ISO date here rather than the RFC's basic format.
+    @Override
+    public String toString() {
+        return format(false);
+    }
+
+    // The RFC 5545 RRULE value, which writes UNTIL as a basic date (20250131).
+    public String toRRule() {
+        return format(true);
+    }
+
+    private String format(boolean basicUntil) {
+        StringBuilder sb = new StringBuilder("FREQ=").append(frequency).append(";INTERVAL=").append(interval);
+        if (!days.isEmpty()) {
+            sb.append(";BYDAY=");
+            boolean first = true;
+            for (DayOfWeek day : days) {
+                if (!first) {
+                    sb.append(',');
+                }
+                first = false;
+                sb.append(DAY_CODES[day.ordinal()]);
+            }
+        }
+        if (until != null) {
+            sb.append(";UNTIL=").append(basicUntil ? until.format(DateTimeFormatter.BASIC_ISO_DATE) : until.toString());
+        }
+        if (count > 0) {
+            sb.append(";COUNT=").append(count);
+        }
+        return sb.toString();
+    }
+
+    // Reads the text written by toString or toRRule. Unknown parts are ignored,
+    // as is BYDAY on a rule that is not weekly, which older versions saved.
+    public static RecurrenceRule parse(String text) {
+        return parse(text, false);
+    }
+
+    // Reads an RRULE from another calendar, refusing anything this class cannot
+    // repeat exactly: parts other than FREQ, INTERVAL, BYDAY, UNTIL, COUNT and
+    // WKST=MO, weekdays with an ordinal such as 2TU, and BYDAY on a rule that is
+    // not weekly.
+    public static RecurrenceRule parseRRule(String text) {
+        return parse(text, true);
+    }
+
+    private static RecurrenceRule parse(String text, boolean strict) {
+        Frequency frequency = null;
+        int interval = 1;
+        Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+        LocalDate until = null;
+        int count = 0;
+        try {
+            for (String part : text.split(";")) {
+                int eq = part.indexOf('=');
+                if (eq < 0) {
+                    continue;
+                }
+                String key = part.substring(0, eq).trim().toUpperCase(Locale.ROOT);
+                String value = part.substring(eq + 1).trim();
+                switch (key) {
+                    case "FREQ" -> frequency = Frequency.valueOf(value.toUpperCase(Locale.ROOT));
+                    case "INTERVAL" -> interval = Integer.parseInt(value);
+                    case "BYDAY" -> {
+                        for (String code : value.split(",")) {
+                            days.add(dayOf(code.trim()));
+                        }
+                    }
+                    case "UNTIL" -> until = parseUntil(value);
+                    case "COUNT" -> count = Integer.parseInt(value);
+                    case "WKST" -> {
+                        if (strict && !value.equalsIgnoreCase("MO")) {
+                            throw new IllegalArgumentException("Unsupported week start " + value);
+                        }
+                    }
+                    default -> {
+                        if (strict) {
+                            throw new IllegalArgumentException("Unsupported part " + key);
+                        }
+                    }
+                }
+            }
+            if (strict && !days.isEmpty() && frequency != Frequency.WEEKLY) {
+                throw new IllegalArgumentException("BYDAY is only supported on weekly rules");
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid recurrence rule: " + text, e);
+        }
+        return new RecurrenceRule(frequency, interval, days, until, count);
+    }
+
+    // ISO (2025-01-31) as written by toString, or RFC 5545 (20250131 or 20250131T235959Z).
+    private static LocalDate parseUntil(String value) {
+        if (value.indexOf('-') >= 0) {
+            return LocalDate.parse(value);
+        }
+        return LocalDate.parse(value.length() > 8 ? value.substring(0, 8) : value, DateTimeFormatter.BASIC_ISO_DATE);
+    }
+
+    private static DayOfWeek dayOf(String code) {
+        for (int i = 0; i < DAY_CODES.length; i++) {
+            if (DAY_CODES[i].equalsIgnoreCase(code)) {
+                return DayOfWeek.of(i + 1);
+            }
+        }
+        throw new IllegalArgumentException("Unknown weekday " + code);
+    }
+}
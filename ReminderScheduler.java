@@ -0,0 +1,242 @@
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+// Due-time reminders for every pending task. Each task has at most one timer in
+// a TimingWheel, and a single daemon thread sleeps until the wheel's next wake
+// time. An edit to the date, time or done flag moves or cancels the task's
+// timer in O(1), and an idle wheel costs one parked thread. Tasks that come due
+// in the same tick reach the UI executor as one list. A recurring task is
+// reminded of its next occurrence that is not ticked off, and then of the one
+// after.
+//
+// Listener callbacks run on the UI thread and compute deadlines there; the
+// scheduler thread only ever sees deadlines. Without start(), nothing runs on
+// its own: poll() advances the wheel to the clock's time, so a virtual Clock
+// can drive it step by step.
+public class ReminderScheduler implements TaskListener, AutoCloseable {
+    // Tasks without a time are reminded at this time on their day.
+    public static final LocalTime ALL_DAY_REMINDER = LocalTime.of(9, 0);
+
+    private static final long TICK_MILLIS = 1_000;
+    private static final long NONE = Long.MIN_VALUE;
+
+    private final Executor uiExecutor;
+    private final Clock clock;
+    private final Consumer<List<Task>> onDue;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    // Guarded by lock.
+    private final TimingWheel<Task> wheel;
+    private final Map<Task, TimingWheel.Timer<Task>> timers = new IdentityHashMap<>();
+    private long wakeAt = Long.MAX_VALUE;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    // onDue receives, on uiExecutor, the tasks that have just come due.
+    public ReminderScheduler(PlannerService planner, Executor uiExecutor, Clock clock, Consumer<List<Task>> onDue) {
+        this.uiExecutor = uiExecutor;
+        this.clock = clock;
+        this.onDue = onDue;
+        this.wheel = new TimingWheel<>(TICK_MILLIS, clock.millis());
+        for (Task task : planner.tasks()) {
+            update(task);
+        }
+        planner.addListener(this);
+    }
+
+    public void start() {
+        running = true;
+        worker = new Thread(this::run, "planner-reminders");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public void close() {
+        if (worker != null) {
+            running = false;
+            worker.interrupt();
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            worker = null;
+        }
+    }
+
+    // Number of tasks with a reminder pending.
+    public int pending() {
+        lock.lock();
+        try {
+            return wheel.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Advances the wheel to the clock's current time and hands whatever came due
+    // to the UI executor. Returns the time of the next possible wake-up.
+    public long poll() {
+        List<Task> due = new ArrayList<>();
+        long next;
+        lock.lock();
+        try {
+            wheel.advanceTo(clock.millis(), due::add);
+            for (Task task : due) {
+                timers.remove(task);
+            }
+            next = wheel.nextWakeMillis();
+            wakeAt = next;
+        } finally {
+            lock.unlock();
+        }
+        if (!due.isEmpty()) {
+            uiExecutor.execute(() -> deliver(due));
+        }
+        return next;
+    }
+
+    private void run() {
+        while (running) {
+            long next = poll();
+            lock.lock();
+            try {
+                // A schedule() that lands before wakeAt lowers it and signals.
+                while (running && wakeAt == next) {
+                    long waitMillis = next - clock.millis();
+                    if (waitMillis <= 0) {
+                        break;
+                    }
+                    if (next == Long.MAX_VALUE) {
+                        changed.await();
+                    } else {
+                        changed.await(waitMillis, TimeUnit.MILLISECONDS);
+                    }
+                }
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // On the UI thread: drop tasks edited or finished since their timer fired,
+    // and queue the next occurrence of recurring ones.
+    private void deliver(List<Task> due) {
+        List<Task> alerts = new ArrayList<>(due.size());
+        for (Task task : due) {
+            if (!task.isDone()) {
+                alerts.add(task);
+            }
+            if (task.getRecurrence() != null) {
+                update(task);
+            }
+        }
+        if (!alerts.isEmpty()) {
+            onDue.accept(alerts);
+        }
+    }
+
+    // ---- listener callbacks ----
+
+    @Override
+    public void taskAdded(Task task) {
+        update(task);
+    }
+
+    @Override
+    public void taskRemoved(Task task) {
+        lock.lock();
+        try {
+            TimingWheel.Timer<Task> timer = timers.remove(task);
+            if (timer != null) {
+                wheel.cancel(timer);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void taskChanged(Task task, TaskField field, Object oldValue, Object newValue) {
+        if (field == TaskField.DATE || field == TaskField.TIME || field == TaskField.DONE) {
+            update(task);
+        }
+    }
+
+    @Override
+    public void occurrenceChanged(Task series, LocalDate date, boolean done) {
+        update(series);
+    }
+
+    // Moves the task's timer to its current deadline, or drops it when it has none.
+    private void update(Task task) {
+        long deadline = deadline(task, clock.millis());
+        lock.lock();
+        try {
+            TimingWheel.Timer<Task> timer = timers.get(task);
+            if (deadline == NONE) {
+                if (timer != null) {
+                    wheel.cancel(timer);
+                    timers.remove(task);
+                }
+                return;
+            }
+            if (timer == null) {
+                timer = wheel.schedule(task, deadline);
+                if (timer != null) {
+                    timers.put(task, timer);
+                }
+            } else if (!wheel.reschedule(timer, deadline)) {
+                timers.remove(task);
+            }
+            if (timer != null && timer.isScheduled() && deadline < wakeAt) {
+                wakeAt = deadline;
+                changed.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long deadline(Task task, long now) {
+        LocalDate date = TaskIndex.parse(task.getDate());
+        if (date == null || task.isDone() || task.getSeries() != null) {
+            return NONE;
+        }
+        LocalTime at = task.getTime() != null ? task.getTime() : ALL_DAY_REMINDER;
+        if (task.getRecurrence() == null) {
+            long deadline = millis(date, at);
+            return deadline > now ? deadline : NONE;
+        }
+        // Steps from occurrence to occurrence, past today's if its time has gone and
+        // past any already ticked off, and stops at the first one still to come.
+        RecurrenceRule rule = task.getRecurrence();
+        LocalDate today = LocalDate.ofInstant(Instant.ofEpochMilli(now), clock.getZone());
+        for (LocalDate day = rule.nextOccurrence(date, today); day != null; day = rule.nextOccurrence(date, day.plusDays(1))) {
+            long deadline = millis(day, at);
+            if (deadline > now && !task.isOccurrenceDone(day)) {
+                return deadline;
+            }
+        }
+        return NONE;
+    }
+
+    private long millis(LocalDate date, LocalTime time) {
+        return date.atTime(time).atZone(clock.getZone()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,156 @@
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Timed tasks per day, each day's entries sorted by start minute. A day also
+// remembers its longest entry, so finding everything that overlaps a window is
+// a binary search to (window start - longest) followed by a short forward scan.
+// Tasks without a due time are not held here; they stay in TaskIndex only.
+// Recurring tasks are left to RecurrenceIndex.
+public class ScheduleIndex implements TaskListener {
+    public static final int MINUTES_PER_DAY = 24 * 60;
+
+    // One timed task: [start, end) in minutes from midnight, clipped to the day.
+    private static final class Entry {
+        final Task task;
+        final LocalDate date;
+        final int start;
+        final int end;
+
+        Entry(Task task, LocalDate date, int start, int end) {
+            this.task = task;
+            this.date = date;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    private static final class Day {
+        final List<Entry> entries = new ArrayList<>();
+        int longest; // never shrinks while the day has entries; a stale value only lengthens the scan
+    }
+
+    private final Map<LocalDate, Day> days = new HashMap<>();
+    private final Map<Task, Entry> entries = new IdentityHashMap<>();
+
+    // Timed tasks on a day, in start order.
+    public List<Task> timedTasksOn(LocalDate date) {
+        Day day = days.get(date);
+        if (day == null) {
+            return Collections.emptyList();
+        }
+        List<Task> result = new ArrayList<>(day.entries.size());
+        for (Entry entry : day.entries) {
+            result.add(entry.task);
+        }
+        return result;
+    }
+
+    // Timed tasks on a day whose [start, end) overlaps [fromMinute, toMinute), in start order.
+    public List<Task> overlapping(LocalDate date, int fromMinute, int toMinute) {
+        Day day = days.get(date);
+        if (day == null) {
+            return Collections.emptyList();
+        }
+        List<Task> result = null;
+        for (int i = firstStartingAt(day.entries, fromMinute - day.longest); i < day.entries.size(); i++) {
+            Entry entry = day.entries.get(i);
+            if (entry.start >= toMinute) {
+                break;
+            }
+            if (entry.end > fromMinute) {
+                if (result == null) {
+                    result = new ArrayList<>();
+                }
+                result.add(entry.task);
+            }
+        }
+        return result == null ? Collections.emptyList() : result;
+    }
+
+    @Override
+    public void taskAdded(Task task) {
+        insert(task);
+    }
+
+    @Override
+    public void taskRemoved(Task task) {
+        remove(task);
+    }
+
+    @Override
+    public void taskChanged(Task task, TaskField field, Object oldValue, Object newValue) {
+        if (field == TaskField.DATE || field == TaskField.TIME || field == TaskField.DURATION) {
+            remove(task);
+            insert(task);
+        }
+    }
+
+    private void insert(Task task) {
+        LocalDate date = TaskIndex.parse(task.getDate());
+        LocalTime time = task.getTime();
+        if (date == null || time == null || task.getRecurrence() != null) {
+            return;
+        }
+        int start = time.getHour() * 60 + time.getMinute();
+        int end = endMinute(start, task.getDuration());
+        Entry entry = new Entry(task, date, start, end);
+        entries.put(task, entry);
+        Day day = days.computeIfAbsent(date, d -> new Day());
+        // After any entries with the same start, so equal starts keep insertion order.
+        day.entries.add(firstStartingAt(day.entries, start + 1), entry);
+        day.longest = Math.max(day.longest, end - start);
+    }
+
+    private void remove(Task task) {
+        Entry entry = entries.remove(task);
+        if (entry == null) {
+            return;
+        }
+        Day day = days.get(entry.date);
+        for (int i = firstStartingAt(day.entries, entry.start); i < day.entries.size(); i++) {
+            if (day.entries.get(i) == entry) {
+                day.entries.remove(i);
+                break;
+            }
+        }
+        if (day.entries.isEmpty()) {
+            days.remove(entry.date);
+        }
+    }
+
+    // For tasks kept outside the index, such as occurrences of a recurring task.
+    static boolean overlaps(Task task, int fromMinute, int toMinute) {
+        LocalTime time = task.getTime();
+        if (time == null) {
+            return false;
+        }
+        int start = time.getHour() * 60 + time.getMinute();
+        return start < toMinute && endMinute(start, task.getDuration()) > fromMinute;
+    }
+
+    // A task without a duration still occupies its starting minute.
+    private static int endMinute(int start, int duration) {
+        return Math.min(MINUTES_PER_DAY, start + Math.max(1, duration));
+    }
+
+    // Index of the first entry whose start is >= minute.
+    private static int firstStartingAt(List<Entry> entries, int minute) {
+        int low = 0;
+        int high = entries.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (entries.get(mid).start < minute) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,152 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+// Inverted index from lower-cased word tokens of a task's name, description and
+// tags to the tasks containing them. Tokens are kept sorted, so every query term
+// is matched as a prefix with a single range lookup. Each task's own token set
+// is remembered too, so an edit only touches the postings of the words that
+// changed, and multi-term queries can be checked without re-tokenizing.
+public class SearchIndex implements TaskListener {
+    private static final String[] NO_TOKENS = new String[0];
+
+    private final NavigableMap<String, Set<Task>> postings = new TreeMap<>();
+    private final Map<Task, String[]> tokensByTask = new IdentityHashMap<>();
+
+    // Tasks matching every term of the query, each term as a word prefix, in no
+    // particular order. Stops after limit matches that pass the filter.
+    public List<Task> search(String query, Predicate<Task> filter, int limit) {
+        String[] terms = tokenize(query);
+        if (terms.length == 0) {
+            return Collections.emptyList();
+        }
+        // Drive the search from the rarest term and check the others per candidate.
+        int rarest = -1;
+        long rarestCount = Long.MAX_VALUE;
+        for (int i = 0; i < terms.length; i++) {
+            long count = 0;
+            for (Set<Task> tasks : withPrefix(terms[i]).values()) {
+                count += tasks.size();
+            }
+            if (count == 0) {
+                return Collections.emptyList();
+            }
+            if (count < rarestCount) {
+                rarestCount = count;
+                rarest = i;
+            }
+        }
+        Set<Task> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Task> result = new ArrayList<>();
+        for (Set<Task> tasks : withPrefix(terms[rarest]).values()) {
+            for (Task task : tasks) {
+                if (seen.add(task) && matchesAll(tokensByTask.get(task), terms, rarest) && filter.test(task)) {
+                    result.add(task);
+                    if (result.size() == limit) {
+                        return result;
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void taskAdded(Task task) {
+        String[] tokens = tokensOf(task);
+        tokensByTask.put(task, tokens);
+        for (String token : tokens) {
+            postings.computeIfAbsent(token, t -> Collections.newSetFromMap(new IdentityHashMap<>())).add(task);
+        }
+    }
+
+    @Override
+    public void taskRemoved(Task task) {
+        String[] tokens = tokensByTask.remove(task);
+        if (tokens != null) {
+            for (String token : tokens) {
+                unpost(token, task);
+            }
+        }
+    }
+
+    @Override
+    public void taskChanged(Task task, TaskField field, Object oldValue, Object newValue) {
+        if (field != TaskField.NAME && field != TaskField.DESCRIPTION && field != TaskField.TAGS) {
+            return;
+        }
+        String[] before = tokensByTask.getOrDefault(task, NO_TOKENS);
+        String[] after = tokensOf(task);
+        tokensByTask.put(task, after);
+        for (String token : before) {
+            if (Arrays.binarySearch(after, token) < 0) {
+                unpost(token, task);
+            }
+        }
+        for (String token : after) {
+            if (Arrays.binarySearch(before, token) < 0) {
+                postings.computeIfAbsent(token, t -> Collections.newSetFromMap(new IdentityHashMap<>())).add(task);
+            }
+        }
+    }
+
+    private NavigableMap<String, Set<Task>> withPrefix(String prefix) {
+        return postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    private void unpost(String token, Task task) {
+        Set<Task> tasks = postings.get(token);
+        if (tasks != null && tasks.remove(task) && tasks.isEmpty()) {
+            postings.remove(token);
+        }
+    }
+
+    // tokens is sorted, so each remaining term is one binary search plus a prefix check.
+    private static boolean matchesAll(String[] tokens, String[] terms, int skip) {
+        for (int i = 0; i < terms.length; i++) {
+            if (i == skip) {
+                continue;
+            }
+            int at = Arrays.binarySearch(tokens, terms[i]);
+            if (at < 0 && (-at - 1 >= tokens.length || !tokens[-at - 1].startsWith(terms[i]))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String[] tokensOf(Task task) {
+        return tokenize(nullToEmpty(task.getName()) + " " + nullToEmpty(task.getDescription()) + " " + nullToEmpty(task.getTags()));
+    }
+
+    // Sorted, distinct, lower-cased runs of letters and digits.
+    static String[] tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return NO_TOKENS;
+        }
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens.stream().sorted().distinct().toArray(String[]::new);
+    }
+
+    private static String nullToEmpty(String s) {
+        return s == null ? "" : s;
+    }
+}
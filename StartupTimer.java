@@ -0,0 +1,68 @@
+import javafx.application.Platform;
+import javafx.scene.Scene;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Startup timing, measured from main(). The app marks its own phases. watch()
+// adds "firstFrame" after the first pulse that lays out the scene. It then adds
+// "interactive" once the events queued behind that frame have run, which is the
+// point where input is handled. Run with -Dplanner.startup=report to print the
+// marks, or -Dplanner.startup=exit to print them and quit, for scripted
+// before/after comparisons.
+public final class StartupTimer {
+    public static final String PROPERTY = "planner.startup";
+
+    private static long launchNanos = System.nanoTime();
+    private static final Map<String, Long> marks = new LinkedHashMap<>();
+
+    private StartupTimer() {
+    }
+
+    // Call first thing in main().
+    public static void launched() {
+        launchNanos = System.nanoTime();
+    }
+
+    public static void mark(String phase) {
+        marks.put(phase, System.nanoTime() - launchNanos);
+    }
+
+    // Milliseconds from launch to the phase, or -1 if it has not been reached.
+    public static long millis(String phase) {
+        Long nanos = marks.get(phase);
+        return nanos == null ? -1 : nanos / 1_000_000;
+    }
+
+    // onInteractive runs once, after the "interactive" mark.
+    public static void watch(Scene scene, Runnable onInteractive) {
+        Runnable[] firstPulse = new Runnable[1];
+        firstPulse[0] = () -> {
+            scene.removePostLayoutPulseListener(firstPulse[0]);
+            mark("firstFrame");
+            Platform.runLater(() -> {
+                mark("interactive");
+                report();
+                onInteractive.run();
+            });
+        };
+        scene.addPostLayoutPulseListener(firstPulse[0]);
+    }
+
+    private static void report() {
+        String mode = System.getProperty(PROPERTY);
+        if (mode == null) {
+            return;
+        }
+        StringBuilder line = new StringBuilder("startup:");
+        for (String phase : marks.keySet()) {
+            line.append(' ').append(phase).append('=').append(millis(phase)).append("ms");
+        }
+        line.append(" (JVM uptime ").append(ManagementFactory.getRuntimeMXBean().getUptime()).append("ms)");
+        System.out.println(line);
+        if (mode.equals("exit")) {
+            Platform.exit();
+        }
+    }
+}
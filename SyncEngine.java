@@ -0,0 +1,861 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Replicates task changes between workstations. Every local edit the planner
+// reports is stamped with a hybrid logical clock and queued. A background thread
+// publishes the queue as gzipped change sets through a SyncTransport and fetches
+// the other nodes' change sets. It merges them and hands one batch at a time to
+// the UI executor, where they are applied through the planner's mutators.
+//
+// Tasks are matched by their uid. Conflicts are settled per field, last writer
+// wins by (timestamp, node). Concurrent done/status edits therefore settle on
+// whichever tick happened last, and status always follows done. Adding and
+// removing a task is one more last-writer-wins register, so every node converges
+// on the same list. Occurrences of a recurring task are settled per day.
+//
+// The stamps, the uid map and the apply step belong to the UI thread. The outbox
+// and the queue of state updates are the only state shared with the sync thread,
+// which does all of the file and transport I/O.
+//
+// A change set is saved with its seq in the outgoing file before it is
+// published, so after a crash the same seq goes out again with the same bytes
+// and is never reused for different changes. After each applied batch and each
+// local edit, the UI thread posts the cursors it has reached together with the
+// stamps that changed. The sync thread folds that into its own copy of the state
+// and rewrites the state file, so the file always pairs cursors with their
+// stamps. A change set that cannot be decoded, or a change that fails to apply,
+// is logged and skipped so that it cannot hold up the rest of that node's log.
+// Remote changes are not recorded in the undo history, so undo only reverses
+// this user's own edits.
+public class SyncEngine implements TaskListener, AutoCloseable {
+    public static final long DEFAULT_INTERVAL_MILLIS = 5_000;
+    private static final long COALESCE_MILLIS = 250; // lets a burst of edits go out as one change set
+    private static final int BATCH_LIMIT = 10_000;
+
+    private static final int BATCH_MAGIC = 0x44505343; // "DPSC"
+    private static final int STATE_MAGIC = 0x44505353; // "DPSS"
+    private static final int FORMAT_VERSION = 1;
+
+    private static final byte UPSERT = 1;
+    private static final byte SET_FIELD = 2;
+    private static final byte REMOVE = 3;
+    private static final byte SET_OCCURRENCE_DONE = 4;
+
+    private static final TaskField[] FIELDS = TaskField.values();
+    private static final int EXISTS = FIELDS.length; // stamp slot of the last add or remove
+    private static final int SLOTS = FIELDS.length + 1;
+
+    // One replicated change. Values are indexed by TaskField ordinal.
+    private static final class Change {
+        final byte kind;
+        final UUID uid;
+        final long ts;
+        final long node;
+        final TaskField field;
+        final Object[] values;
+        final String recurrence;
+        final int epochDay;
+
+        Change(byte kind, UUID uid, long ts, long node, TaskField field, Object[] values, String recurrence, int epochDay) {
+            this.kind = kind;
+            this.uid = uid;
+            this.ts = ts;
+            this.node = node;
+            this.field = field;
+            this.values = values;
+            this.recurrence = recurrence;
+            this.epochDay = epochDay;
+        }
+    }
+
+    // What changed in the saved state since the last update: copies taken on the UI thread.
+    private static final class StateUpdate {
+        final Map<Long, Long> cursors;
+        final Map<UUID, long[]> stamps;
+        final Map<UUID, Map<Integer, long[]>> occurrenceStamps;
+
+        StateUpdate(Map<Long, Long> cursors, Map<UUID, long[]> stamps, Map<UUID, Map<Integer, long[]>> occurrenceStamps) {
+            this.cursors = cursors;
+            this.stamps = stamps;
+            this.occurrenceStamps = occurrenceStamps;
+        }
+    }
+
+    private static final Comparator<Change> BY_STAMP =
+            Comparator.<Change>comparingLong(c -> c.ts).thenComparingLong(c -> c.node);
+
+    private final PlannerService planner;
+    private final SyncTransport transport;
+    private final Executor uiExecutor;
+    private final Path stateFile;
+    private final Path outgoingFile;
+    private final UndoHistory history;
+    private final long intervalMillis;
+    private final HybridClock clock;
+    private long node;
+
+    // UI-thread state. Tasks with no stamps yet carry the baseline stamp, taken
+    // when this node first published its whole list.
+    private final Map<UUID, Task> tasksByUid = new HashMap<>();
+    private final Map<UUID, long[]> stamps = new HashMap<>();
+    private final Map<UUID, Map<Integer, long[]>> occurrenceStamps = new HashMap<>();
+    private final Set<Task> pendingAdds = new HashSet<>();
+    private final Map<Long, Long> appliedCursors = new HashMap<>(); // saved with the stamps
+    private final Set<UUID> dirtyStamps = new HashSet<>(); // changed since the last postState
+    private final Set<UUID> dirtyOccurrences = new HashSet<>();
+    private long baselineTs;
+    private long baselineNode;
+    private boolean applyingRemote;
+
+    // Sync-thread state. The cursors run ahead of appliedCursors by the batches
+    // handed to the UI thread and not yet applied. The saved maps are what the
+    // state file holds, kept current from the posted StateUpdates.
+    private final Map<Long, Long> cursors = new HashMap<>();
+    private volatile long nextSeq;
+    private byte[] unsent;
+    private long unsentSeq = -1; // -1 until unsent is saved in the outgoing file
+    private final Map<Long, Long> savedCursors = new HashMap<>();
+    private final Map<UUID, long[]> savedStamps = new HashMap<>();
+    private final Map<UUID, Map<Integer, long[]>> savedOccurrenceStamps = new HashMap<>();
+
+    private final ConcurrentLinkedQueue<Change> outbox = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<StateUpdate> stateUpdates = new ConcurrentLinkedQueue<>();
+    private final Semaphore wake = new Semaphore(0);
+    private volatile boolean running;
+    private Thread worker;
+
+    // uiExecutor applies incoming batches; pass Platform::runLater from the app.
+    // stateFile keeps this node's id, cursors and stamps between runs, and a
+    // sibling ".outgoing" file the last change set published. history, which may
+    // be null, is kept out of remote changes.
+    public SyncEngine(PlannerService planner, UndoHistory history, SyncTransport transport, Executor uiExecutor,
+                      Path stateFile, long intervalMillis) throws IOException {
+        this(planner, history, transport, uiExecutor, stateFile, intervalMillis, System::currentTimeMillis);
+    }
+
+    // wallClock feeds the hybrid clock; tests pass skewed clocks to stand in for other machines.
+    SyncEngine(PlannerService planner, UndoHistory history, SyncTransport transport, Executor uiExecutor,
+               Path stateFile, long intervalMillis, LongSupplier wallClock) throws IOException {
+        this.clock = new HybridClock(wallClock);
+        this.planner = planner;
+        this.history = history;
+        this.transport = transport;
+        this.uiExecutor = uiExecutor;
+        this.stateFile = stateFile;
+        this.outgoingFile = stateFile.resolveSibling(stateFile.getFileName() + ".outgoing");
+        this.intervalMillis = intervalMillis;
+        for (Task task : planner.tasks()) {
+            tasksByUid.put(task.getUid(), task);
+        }
+        if (Files.exists(stateFile)) {
+            readState();
+            cursors.putAll(appliedCursors);
+            savedCursors.putAll(appliedCursors);
+            for (Map.Entry<UUID, long[]> entry : stamps.entrySet()) {
+                savedStamps.put(entry.getKey(), entry.getValue().clone());
+            }
+            for (Map.Entry<UUID, Map<Integer, long[]>> entry : occurrenceStamps.entrySet()) {
+                savedOccurrenceStamps.put(entry.getKey(), new HashMap<>(entry.getValue()));
+            }
+            if (Files.exists(outgoingFile)) {
+                readOutgoing();
+            }
+        } else {
+            // First run on this node: publish the whole list once. The node id
+            // is saved straight away so the log it starts is never orphaned.
+            node = UUID.randomUUID().getMostSignificantBits();
+            baselineTs = clock.now();
+            baselineNode = node;
+            for (Task task : planner.tasks()) {
+                outbox.add(upsert(task, baselineTs));
+            }
+            writeState();
+        }
+        planner.addListener(this);
+    }
+
+    public void start() {
+        running = true;
+        worker = new Thread(this::run, "planner-sync");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    // Syncs now instead of at the next interval.
+    public void syncNow() {
+        wake.release();
+    }
+
+    // Stops the sync thread, which publishes what is still queued and saves the
+    // state before it exits. Call on the UI thread; it only waits for the thread.
+    @Override
+    public void close() {
+        postState();
+        if (worker == null) {
+            finish(); // never started: there is no sync thread to hand this to
+            return;
+        }
+        running = false;
+        wake.release();
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        worker = null;
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                syncOnce();
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Sync failed: " + e);
+            }
+            try {
+                if (wake.tryAcquire(intervalMillis, TimeUnit.MILLISECONDS)) {
+                    Thread.sleep(COALESCE_MILLIS);
+                    wake.drainPermits();
+                }
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+        finish();
+    }
+
+    // ---- sync thread ----
+
+    // One round of the sync thread's loop: publish, fetch, then save the state.
+    // Tests call it directly, in place of start(), to drive the engine a step at a time.
+    void syncOnce() throws IOException {
+        try {
+            push();
+            pull();
+        } finally {
+            saveState();
+        }
+    }
+
+    // The last push and state save, without fetching anything new.
+    private void finish() {
+        try {
+            push();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Sync: could not publish pending changes: " + e);
+        }
+        saveState();
+    }
+
+    // Folds the posted updates into the saved copy and rewrites the state file.
+    private void saveState() {
+        if (stateUpdates.isEmpty()) {
+            return;
+        }
+        StateUpdate update;
+        while ((update = stateUpdates.poll()) != null) {
+            savedCursors.putAll(update.cursors);
+            savedStamps.putAll(update.stamps);
+            savedOccurrenceStamps.putAll(update.occurrenceStamps);
+        }
+        try {
+            writeState();
+        } catch (IOException e) {
+            System.err.println("Sync: could not save state: " + e);
+        }
+    }
+
+    // A change set takes its seq only once it is saved in the outgoing file. One
+    // that failed to publish is retried under the same seq.
+    private void push() throws IOException {
+        while (true) {
+            if (unsent == null) {
+                List<Change> changes = new ArrayList<>();
+                Change change;
+                while (changes.size() < BATCH_LIMIT && (change = outbox.poll()) != null) {
+                    changes.add(change);
+                }
+                if (changes.isEmpty()) {
+                    return;
+                }
+                unsent = encode(changes);
+            }
+            if (unsentSeq < 0) {
+                writeOutgoing(nextSeq, unsent);
+                unsentSeq = nextSeq;
+                nextSeq = unsentSeq + 1;
+            }
+            transport.publish(node, unsentSeq, unsent);
+            unsent = null;
+            unsentSeq = -1;
+        }
+    }
+
+    private void pull() throws IOException {
+        List<SyncTransport.Batch> batches = transport.fetch(node, cursors);
+        if (batches.isEmpty()) {
+            return;
+        }
+        List<Change> incoming = new ArrayList<>();
+        Map<Long, Long> seen = new HashMap<>();
+        for (SyncTransport.Batch batch : batches) {
+            List<Change> changes = new ArrayList<>();
+            try {
+                decode(batch.data, changes);
+                incoming.addAll(changes);
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Sync: skipping unreadable change set " + batch.seq + " from node "
+                        + Long.toHexString(batch.node) + ": " + e);
+            }
+            seen.merge(batch.node, batch.seq, Math::max);
+        }
+        cursors.putAll(seen);
+        List<Change> merged = merge(incoming);
+        if (!merged.isEmpty()) {
+            clock.observe(merged.get(merged.size() - 1).ts);
+        }
+        uiExecutor.execute(() -> apply(merged, seen));
+    }
+
+    // Puts the changes in stamp order and drops field and occurrence edits that a
+    // later edit in the same fetch overwrites.
+    private static List<Change> merge(List<Change> incoming) {
+        incoming.sort(BY_STAMP);
+        Set<String> overwritten = new HashSet<>();
+        List<Change> merged = new ArrayList<>(incoming.size());
+        for (int i = incoming.size() - 1; i >= 0; i--) {
+            Change change = incoming.get(i);
+            String key = switch (change.kind) {
+                case SET_FIELD -> change.uid + "/" + change.field.ordinal();
+                case SET_OCCURRENCE_DONE -> change.uid + "@" + change.epochDay;
+                default -> null;
+            };
+            if (key == null || overwritten.add(key)) {
+                merged.add(change);
+            }
+        }
+        Collections.reverse(merged);
+        return merged;
+    }
+
+    // ---- UI thread: local changes ----
+
+    @Override
+    public void taskAdded(Task task) {
+        tasksByUid.put(task.getUid(), task);
+        if (!applyingRemote) {
+            long ts = clock.now();
+            long[] taskStamps = stampsOf(task.getUid());
+            for (int slot = 0; slot < SLOTS; slot++) {
+                setStamp(taskStamps, slot, ts, node);
+            }
+            outbox.add(upsert(task, ts));
+        }
+    }
+
+    @Override
+    public void taskRemoved(Task task) {
+        tasksByUid.remove(task.getUid());
+        if (!applyingRemote) {
+            long ts = clock.now();
+            setStamp(stampsOf(task.getUid()), EXISTS, ts, node);
+            outbox.add(new Change(REMOVE, task.getUid(), ts, node, null, null, null, 0));
+        }
+    }
+
+    @Override
+    public void taskChanged(Task task, TaskField field, Object oldValue, Object newValue) {
+        if (!applyingRemote) {
+            long ts = clock.now();
+            setStamp(stampsOf(task.getUid()), field.ordinal(), ts, node);
+            Object[] values = new Object[FIELDS.length];
+            values[field.ordinal()] = valueOf(task, field);
+            outbox.add(new Change(SET_FIELD, task.getUid(), ts, node, field, values, null, 0));
+        }
+    }
+
+    @Override
+    public void occurrenceChanged(Task series, LocalDate date, boolean done) {
+        if (!applyingRemote) {
+            long ts = clock.now();
+            int epochDay = (int) date.toEpochDay();
+            occurrenceStamps.computeIfAbsent(series.getUid(), uid -> new HashMap<>()).put(epochDay, new long[] { ts, node });
+            dirtyOccurrences.add(series.getUid());
+            Object[] values = new Object[FIELDS.length];
+            values[TaskField.DONE.ordinal()] = done;
+            outbox.add(new Change(SET_OCCURRENCE_DONE, series.getUid(), ts, node, TaskField.DONE, values, null, epochDay));
+        }
+    }
+
+    @Override
+    public void changeComplete() {
+        if (!applyingRemote && !outbox.isEmpty()) {
+            postState();
+            wake.release();
+        }
+    }
+
+    private Change upsert(Task task, long ts) {
+        Object[] values = new Object[FIELDS.length];
+        for (TaskField field : FIELDS) {
+            values[field.ordinal()] = valueOf(task, field);
+        }
+        return new Change(UPSERT, task.getUid(), ts, node, null, values,
+                task.getRecurrence() == null ? null : task.getRecurrence().toString(), 0);
+    }
+
+    private static Object valueOf(Task task, TaskField field) {
+        return switch (field) {
+            case NAME -> task.getName();
+            case DATE -> task.getDate();
+            case PRIORITY -> task.getPriority();
+            case DONE -> task.isDone();
+            case CATEGORY -> task.getCategory();
+            case TIME -> task.getTime();
+            case DURATION -> task.getDuration();
+            case DESCRIPTION -> task.getDescription();
+            case TAGS -> task.getTags();
+        };
+    }
+
+    // ---- UI thread: remote changes ----
+
+    // Applies one fetch, then posts the cursors it reached with the stamps for the
+    // sync thread to save.
+    private void apply(List<Change> changes, Map<Long, Long> seen) {
+        if (history != null) {
+            history.runUnrecorded(() -> applyAll(changes));
+        } else {
+            applyAll(changes);
+        }
+        appliedCursors.putAll(seen);
+        postState();
+        wake.release();
+    }
+
+    // Copies the cursors and whatever stamps changed since the last post. Only
+    // the changed entries are copied, so this stays cheap however many tasks
+    // there are.
+    private void postState() {
+        Map<UUID, long[]> changed = new HashMap<>();
+        for (UUID uid : dirtyStamps) {
+            changed.put(uid, stamps.get(uid).clone());
+        }
+        Map<UUID, Map<Integer, long[]>> changedDays = new HashMap<>();
+        for (UUID uid : dirtyOccurrences) {
+            changedDays.put(uid, new HashMap<>(occurrenceStamps.get(uid))); // day stamps are replaced, never mutated
+        }
+        dirtyStamps.clear();
+        dirtyOccurrences.clear();
+        stateUpdates.add(new StateUpdate(new HashMap<>(appliedCursors), changed, changedDays));
+    }
+
+    private void applyAll(List<Change> changes) {
+        applyingRemote = true;
+        try {
+            for (Change change : changes) {
+                try {
+                    switch (change.kind) {
+                        case UPSERT -> applyUpsert(change);
+                        case REMOVE -> applyRemove(change);
+                        case SET_FIELD -> applyField(change, change.field);
+                        case SET_OCCURRENCE_DONE -> applyOccurrence(change);
+                        default -> { }
+                    }
+                } catch (RuntimeException e) {
+                    System.err.println("Sync: skipping change to task " + change.uid + " from node "
+                            + Long.toHexString(change.node) + ": " + e);
+                }
+            }
+            if (!pendingAdds.isEmpty()) {
+                List<Task> added = new ArrayList<>(pendingAdds);
+                pendingAdds.clear();
+                for (Task task : added) {
+                    planner.addCategory(task.getCategory());
+                }
+                planner.addTasks(added);
+            }
+        } finally {
+            applyingRemote = false;
+        }
+    }
+
+    private void applyUpsert(Change change) {
+        long[] taskStamps = stampsOf(change.uid);
+        Task task = tasksByUid.get(change.uid);
+        if (task != null) {
+            for (TaskField field : FIELDS) {
+                applyField(change, field);
+            }
+            if (newer(change.ts, change.node, taskStamps, EXISTS)) {
+                setStamp(taskStamps, EXISTS, change.ts, change.node);
+            }
+            return;
+        }
+        if (!newer(change.ts, change.node, taskStamps, EXISTS)) {
+            return; // removed after this add
+        }
+        Object[] v = change.values;
+        task = new Task((String) v[TaskField.NAME.ordinal()], (String) v[TaskField.DATE.ordinal()],
+                (String) v[TaskField.PRIORITY.ordinal()], "Pending", (String) v[TaskField.CATEGORY.ordinal()],
+                (LocalTime) v[TaskField.TIME.ordinal()], (Integer) v[TaskField.DURATION.ordinal()]);
+        task.setDone((Boolean) v[TaskField.DONE.ordinal()]);
+        task.setDescription((String) v[TaskField.DESCRIPTION.ordinal()]);
+        task.setTags((String) v[TaskField.TAGS.ordinal()]);
+        if (change.recurrence != null) {
+            try {
+                task.setRecurrence(RecurrenceRule.parse(change.recurrence));
+            } catch (IllegalArgumentException e) {
+                System.err.println("Sync: ignoring recurrence " + change.recurrence + ": " + e.getMessage());
+            }
+        }
+        task.setUid(change.uid);
+        for (int slot = 0; slot < SLOTS; slot++) {
+            setStamp(taskStamps, slot, change.ts, change.node);
+        }
+        tasksByUid.put(change.uid, task);
+        pendingAdds.add(task);
+    }
+
+    private void applyRemove(Change change) {
+        long[] taskStamps = stampsOf(change.uid);
+        if (!newer(change.ts, change.node, taskStamps, EXISTS)) {
+            return; // re-added after this remove
+        }
+        setStamp(taskStamps, EXISTS, change.ts, change.node);
+        Task task = tasksByUid.remove(change.uid);
+        if (task != null && !pendingAdds.remove(task)) {
+            planner.removeTask(task);
+        }
+    }
+
+    private void applyField(Change change, TaskField field) {
+        Task task = tasksByUid.get(change.uid);
+        if (task == null) {
+            return; // removed here, or its add has not arrived
+        }
+        long[] taskStamps = stampsOf(change.uid);
+        if (newer(change.ts, change.node, taskStamps, field.ordinal())) {
+            setStamp(taskStamps, field.ordinal(), change.ts, change.node);
+            planner.setField(task, field, change.values[field.ordinal()]);
+        }
+    }
+
+    private void applyOccurrence(Change change) {
+        Task series = tasksByUid.get(change.uid);
+        if (series == null || series.getRecurrence() == null) {
+            return;
+        }
+        Map<Integer, long[]> days = occurrenceStamps.computeIfAbsent(change.uid, uid -> new HashMap<>());
+        long[] stamp = days.get(change.epochDay);
+        if (stamp != null && !newer(change.ts, change.node, stamp, 0)) {
+            return;
+        }
+        days.put(change.epochDay, new long[] { change.ts, change.node });
+        dirtyOccurrences.add(change.uid);
+        boolean done = (Boolean) change.values[TaskField.DONE.ordinal()];
+        LocalDate date = LocalDate.ofEpochDay(change.epochDay);
+        if (pendingAdds.contains(series)) {
+            series.setOccurrenceDone(date, done);
+        } else {
+            planner.setOccurrenceDone(series, date, done);
+        }
+    }
+
+    // Stamps are [ts, node] pairs, one per field plus EXISTS. A task this node
+    // has not stamped yet was either part of the baseline or is unknown here.
+    // Callers may change the stamps, so they are marked for the next postState.
+    private long[] stampsOf(UUID uid) {
+        dirtyStamps.add(uid);
+        long[] taskStamps = stamps.get(uid);
+        if (taskStamps == null) {
+            taskStamps = new long[SLOTS * 2];
+            if (tasksByUid.containsKey(uid)) {
+                for (int slot = 0; slot < SLOTS; slot++) {
+                    setStamp(taskStamps, slot, baselineTs, baselineNode);
+                }
+            }
+            stamps.put(uid, taskStamps);
+        }
+        return taskStamps;
+    }
+
+    private static void setStamp(long[] stamps, int slot, long ts, long node) {
+        stamps[slot * 2] = ts;
+        stamps[slot * 2 + 1] = node;
+    }
+
+    private static boolean newer(long ts, long node, long[] stamps, int slot) {
+        long otherTs = stamps[slot * 2];
+        return ts != otherTs ? ts > otherTs : node > stamps[slot * 2 + 1];
+    }
+
+    // ---- change set encoding ----
+
+    // [magic][version][node][count] then per change [kind][uid][ts] and its values, gzipped.
+    private byte[] encode(List<Change> changes) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes, 1 << 16))) {
+            out.writeInt(BATCH_MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(node);
+            out.writeInt(changes.size());
+            for (Change change : changes) {
+                out.writeByte(change.kind);
+                out.writeLong(change.uid.getMostSignificantBits());
+                out.writeLong(change.uid.getLeastSignificantBits());
+                out.writeLong(change.ts);
+                switch (change.kind) {
+                    case UPSERT -> {
+                        for (TaskField field : FIELDS) {
+                            writeValue(out, field, change.values[field.ordinal()]);
+                        }
+                        writeString(out, change.recurrence);
+                    }
+                    case SET_FIELD -> {
+                        out.writeByte(change.field.ordinal());
+                        writeValue(out, change.field, change.values[change.field.ordinal()]);
+                    }
+                    case SET_OCCURRENCE_DONE -> {
+                        out.writeInt(change.epochDay);
+                        out.writeBoolean((Boolean) change.values[TaskField.DONE.ordinal()]);
+                    }
+                    default -> { }
+                }
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void decode(byte[] data, List<Change> into) throws IOException {
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(data)))) {
+            if (in.readInt() != BATCH_MAGIC || in.readInt() > FORMAT_VERSION) {
+                throw new IOException("Unrecognised change set");
+            }
+            long node = in.readLong();
+            for (int count = in.readInt(); count > 0; count--) {
+                byte kind = in.readByte();
+                UUID uid = new UUID(in.readLong(), in.readLong());
+                long ts = in.readLong();
+                Object[] values = new Object[FIELDS.length];
+                switch (kind) {
+                    case UPSERT -> {
+                        for (TaskField field : FIELDS) {
+                            values[field.ordinal()] = readValue(in, field);
+                        }
+                        into.add(new Change(kind, uid, ts, node, null, values, readString(in), 0));
+                    }
+                    case SET_FIELD -> {
+                        TaskField field = FIELDS[in.readByte()];
+                        values[field.ordinal()] = readValue(in, field);
+                        into.add(new Change(kind, uid, ts, node, field, values, null, 0));
+                    }
+                    case REMOVE -> into.add(new Change(kind, uid, ts, node, null, null, null, 0));
+                    case SET_OCCURRENCE_DONE -> {
+                        int epochDay = in.readInt();
+                        values[TaskField.DONE.ordinal()] = in.readBoolean();
+                        into.add(new Change(kind, uid, ts, node, TaskField.DONE, values, null, epochDay));
+                    }
+                    default -> throw new IOException("Unknown change kind " + kind);
+                }
+            }
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, TaskField field, Object value) throws IOException {
+        switch (field) {
+            case DONE -> out.writeBoolean((Boolean) value);
+            case TIME -> {
+                LocalTime time = (LocalTime) value;
+                out.writeShort(time == null ? TaskStore.NO_TIME : time.getHour() * 60 + time.getMinute());
+            }
+            case DURATION -> out.writeInt(((Number) value).intValue());
+            default -> writeString(out, (String) value);
+        }
+    }
+
+    private static Object readValue(DataInputStream in, TaskField field) throws IOException {
+        return switch (field) {
+            case DONE -> in.readBoolean();
+            case TIME -> {
+                int minute = in.readShort();
+                yield minute == TaskStore.NO_TIME ? null : LocalTime.of(minute / 60, minute % 60);
+            }
+            case DURATION -> in.readInt();
+            default -> readString(in);
+        };
+    }
+
+    // Strings are stored as [int byte length, -1 for null][UTF-8 bytes], as in TaskStore.
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // ---- state ----
+
+    // [magic][version][node][seq][length][change set], replaced atomically.
+    private void writeOutgoing(long seq, byte[] data) throws IOException {
+        Path tmp = outgoingFile.resolveSibling(outgoingFile.getFileName() + ".tmp");
+        Files.createDirectories(outgoingFile.toAbsolutePath().getParent());
+        try (FileOutputStream file = new FileOutputStream(tmp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.writeInt(STATE_MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(node);
+            out.writeLong(seq);
+            out.writeInt(data.length);
+            out.write(data);
+            out.flush();
+            file.getChannel().force(true);
+        }
+        Files.move(tmp, outgoingFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // The last change set given a seq goes out again; if it was already
+    // published, the transport accepts the identical copy.
+    private void readOutgoing() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(outgoingFile)))) {
+            if (in.readInt() != STATE_MAGIC || in.readInt() > FORMAT_VERSION) {
+                throw new IOException("Unrecognised sync outgoing file " + outgoingFile);
+            }
+            if (in.readLong() != node) {
+                return; // left by an earlier node id
+            }
+            long seq = in.readLong();
+            byte[] data = new byte[in.readInt()];
+            in.readFully(data);
+            unsent = data;
+            unsentSeq = seq;
+            nextSeq = Math.max(nextSeq, seq + 1);
+        }
+    }
+
+    // Writes the saved copy: on the sync thread, or before it starts.
+    private void writeState() throws IOException {
+        Path tmp = stateFile.resolveSibling(stateFile.getFileName() + ".tmp");
+        Files.createDirectories(stateFile.toAbsolutePath().getParent());
+        try (OutputStream file = Files.newOutputStream(tmp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.writeInt(STATE_MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(node);
+            out.writeLong(nextSeq);
+            out.writeLong(clock.last());
+            out.writeLong(baselineTs);
+            out.writeLong(baselineNode);
+            out.writeInt(savedCursors.size());
+            for (Map.Entry<Long, Long> cursor : savedCursors.entrySet()) {
+                out.writeLong(cursor.getKey());
+                out.writeLong(cursor.getValue());
+            }
+            out.writeInt(SLOTS);
+            out.writeInt(savedStamps.size());
+            for (Map.Entry<UUID, long[]> entry : savedStamps.entrySet()) {
+                out.writeLong(entry.getKey().getMostSignificantBits());
+                out.writeLong(entry.getKey().getLeastSignificantBits());
+                for (long value : entry.getValue()) {
+                    out.writeLong(value);
+                }
+            }
+            out.writeInt(savedOccurrenceStamps.size());
+            for (Map.Entry<UUID, Map<Integer, long[]>> entry : savedOccurrenceStamps.entrySet()) {
+                out.writeLong(entry.getKey().getMostSignificantBits());
+                out.writeLong(entry.getKey().getLeastSignificantBits());
+                out.writeInt(entry.getValue().size());
+                for (Map.Entry<Integer, long[]> day : entry.getValue().entrySet()) {
+                    out.writeInt(day.getKey());
+                    out.writeLong(day.getValue()[0]);
+                    out.writeLong(day.getValue()[1]);
+                }
+            }
+        }
+        Files.move(tmp, stateFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void readState() throws IOException {
+        try (InputStream file = Files.newInputStream(stateFile);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(file, 1 << 16))) {
+            if (in.readInt() != STATE_MAGIC || in.readInt() > FORMAT_VERSION) {
+                throw new IOException("Unrecognised sync state " + stateFile);
+            }
+            node = in.readLong();
+            nextSeq = in.readLong();
+            clock.observe(in.readLong());
+            baselineTs = in.readLong();
+            baselineNode = in.readLong();
+            for (int count = in.readInt(); count > 0; count--) {
+                appliedCursors.put(in.readLong(), in.readLong());
+            }
+            // The EXISTS stamp is always saved last, so a state written before a
+            // TaskField was added still lines up.
+            int savedSlots = in.readInt();
+            for (int count = in.readInt(); count > 0; count--) {
+                UUID uid = new UUID(in.readLong(), in.readLong());
+                long[] taskStamps = new long[SLOTS * 2];
+                for (int saved = 0; saved < savedSlots; saved++) {
+                    long ts = in.readLong();
+                    long stampNode = in.readLong();
+                    int slot = saved == savedSlots - 1 ? EXISTS : saved;
+                    if (slot == EXISTS || slot < FIELDS.length) {
+                        setStamp(taskStamps, slot, ts, stampNode);
+                    }
+                }
+                stamps.put(uid, taskStamps);
+            }
+            for (int count = in.readInt(); count > 0; count--) {
+                UUID uid = new UUID(in.readLong(), in.readLong());
+                Map<Integer, long[]> days = new HashMap<>();
+                for (int dayCount = in.readInt(); dayCount > 0; dayCount--) {
+                    days.put(in.readInt(), new long[] { in.readLong(), in.readLong() });
+                }
+                occurrenceStamps.put(uid, days);
+            }
+        }
+    }
+}
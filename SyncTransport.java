@@ -0,0 +1,30 @@
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+// Where SyncEngine exchanges change sets. Each node appends to its own log,
+// numbered 0, 1, 2… without gaps. Readers keep a cursor per node, the last
+// sequence number they have applied, so a fetch only returns what is new.
+// DirectorySyncTransport shares the logs through a folder;
+// InMemorySyncTransport keeps them in memory for a single process.
+public interface SyncTransport {
+    final class Batch {
+        public final long node;
+        public final long seq;
+        public final byte[] data;
+
+        public Batch(long node, long seq, byte[] data) {
+            this.node = node;
+            this.seq = seq;
+            this.data = data;
+        }
+    }
+
+    // A published seq is never replaced. Publishing it again succeeds only with
+    // the same data, so a retry after a failure is safe and a reused seq fails.
+    void publish(long node, long seq, byte[] data) throws IOException;
+
+    // Batches from every node except self whose seq is past that node's cursor
+    // (-1 when absent), each node's in seq order.
+    List<Batch> fetch(long self, Map<Long, Long> cursors) throws IOException;
+}
@@ -1,46 +1,371 @@
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleBooleanProperty;
+import javafx.beans.property.SimpleIntegerProperty;
+import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.property.StringProperty;
 
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collections;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+
+// The one task model. Every field lives in a plain Java field with a plain
+// getter, so indexes, sorting, filtering and the store never allocate
+// anything. A JavaFX property is only created the first time a binding asks
+// for it (in practice, the cells of the rows on screen). From then on the
+// property holds the value and the plain field mirrors it. Every change, from a
+// setter or through a bound property, reaches the task's Observer (the planner),
+// which stores it in the plain field under its lock.
 public class Task {
-    private final StringProperty name;
-    private final StringProperty date;
-    private final StringProperty priority;
-    private final StringProperty status;
-    private final StringProperty category;
+    // Receives each field change. It must run write, which stores the new value
+    // in the plain field, before passing the change on.
+    interface Observer {
+        void fieldChanged(Task task, TaskField field, Object oldValue, Object newValue, Runnable write);
+    }
+
+    private String name;
+    private String date;
+    private String priority;
+    private String status;
+    private boolean done;
+    private String category;
+    private LocalTime time;
+    private int duration;
+    private String description;
+    private String tags;
+    private RecurrenceRule recurrence;
+    private Task series;
+    private NavigableSet<LocalDate> doneOccurrences;
+    private UUID uid;
+    private Observer observer;
+
+    private StringProperty nameProperty;
+    private StringProperty dateProperty;
+    private StringProperty priorityProperty;
+    private StringProperty statusProperty;
+    private BooleanProperty doneProperty;
+    private StringProperty categoryProperty;
+    private ObjectProperty<LocalTime> timeProperty;
+    private IntegerProperty durationProperty;
+    private StringProperty descriptionProperty;
+    private StringProperty tagsProperty;
+
+    public Task(String name, String date, String priority, String status) {
+        this(name, date, priority, status, null);
+    }
 
     public Task(String name, String date, String priority, String status, String category) {
-        this.name     = new SimpleStringProperty(name);
-        this.date     = new SimpleStringProperty(date);
-        this.priority = new SimpleStringProperty(priority);
-        this.status   = new SimpleStringProperty(status);
-        this.category = new SimpleStringProperty(category);
-    }
-
-    // Name
-    public String getName()              { return name.get(); }
-    public void   setName(String value)  { name.set(value); }
-    public StringProperty nameProperty(){ return name; }
-
-    // Date
-    public String getDate()               { return date.get(); }
-    public void   setDate(String value)   { date.set(value); }
-    public StringProperty dateProperty()  { return date; }
-
-    // Priority
-    public String getPriority()                  { return priority.get(); }
-    public void   setPriority(String value)      { priority.set(value); }
-    public StringProperty priorityProperty()     { return priority; }
-
-    // Status
-    public String getStatus()                { return status.get(); }
-    public void   setStatus(String value)    { status.set(value); }
-    public StringProperty statusProperty()   { return status; }
-
-    // Category
-    public String getCategory()                { return category.get(); }
-    public void   setCategory(String value)    { category.set(value); }
-    public StringProperty categoryProperty()   { return category; }
-}
-public class Task {
+        this(name, date, priority, status, category, null, 0);
+    }
+
+    // time is the due time, or null for an all-day task; duration is in minutes.
+    public Task(String name, String date, String priority, String status, String category,
+                LocalTime time, int duration) {
+        this.name = name;
+        this.date = date;
+        this.priority = priority;
+        this.status = status;
+        this.category = category;
+        this.time = time;
+        this.duration = Math.max(0, duration);
+    }
+
+    void setObserver(Observer observer) { this.observer = observer; }
+
+    private void changed(TaskField field, Object oldValue, Object newValue, Runnable write) {
+        if (observer != null) {
+            observer.fieldChanged(this, field, oldValue, newValue, write);
+        } else {
+            write.run();
+        }
+    }
+
+    // ---- name ----
+
+    public String getName() { return name; }
+
+    public void setName(String value) {
+        if (nameProperty != null) {
+            nameProperty.set(value);
+        } else if (!Objects.equals(name, value)) {
+            updateName(value);
+        }
+    }
+
+    public StringProperty nameProperty() {
+        if (nameProperty == null) {
+            nameProperty = new SimpleStringProperty(this, "name", name);
+            nameProperty.addListener((obs, o, n) -> updateName(n));
+        }
+        return nameProperty;
+    }
+
+    private void updateName(String value) {
+        String old = name;
+        changed(TaskField.NAME, old, value, () -> name = value);
+    }
+
+    // ---- date ----
+
+    public String getDate() { return date; }
+
+    public void setDate(String value) {
+        if (dateProperty != null) {
+            dateProperty.set(value);
+        } else if (!Objects.equals(date, value)) {
+            updateDate(value);
+        }
+    }
+
+    public StringProperty dateProperty() {
+        if (dateProperty == null) {
+            dateProperty = new SimpleStringProperty(this, "date", date);
+            dateProperty.addListener((obs, o, n) -> updateDate(n));
+        }
+        return dateProperty;
+    }
+
+    private void updateDate(String value) {
+        String old = date;
+        changed(TaskField.DATE, old, value, () -> date = value);
+    }
+
+    // ---- priority ----
+
+    public String getPriority() { return priority; }
+
+    public void setPriority(String value) {
+        if (priorityProperty != null) {
+            priorityProperty.set(value);
+        } else if (!Objects.equals(priority, value)) {
+            updatePriority(value);
+        }
+    }
+
+    public StringProperty priorityProperty() {
+        if (priorityProperty == null) {
+            priorityProperty = new SimpleStringProperty(this, "priority", priority);
+            priorityProperty.addListener((obs, o, n) -> updatePriority(n));
+        }
+        return priorityProperty;
+    }
+
+    private void updatePriority(String value) {
+        String old = priority;
+        changed(TaskField.PRIORITY, old, value, () -> priority = value);
+    }
+
+    // ---- status: derived from done, so it has no setter of its own ----
+
+    public String getStatus() { return status; }
+
+    public StringProperty statusProperty() {
+        if (statusProperty == null) {
+            statusProperty = new SimpleStringProperty(this, "status", status);
+        }
+        return statusProperty;
+    }
+
+    // ---- done ----
+
+    public boolean isDone() { return done; }
+
+    public void setDone(boolean value) {
+        if (doneProperty != null) {
+            doneProperty.set(value);
+        } else if (done != value) {
+            updateDone(value);
+        }
+    }
+
+    public BooleanProperty doneProperty() {
+        if (doneProperty == null) {
+            doneProperty = new SimpleBooleanProperty(this, "done", done);
+            doneProperty.addListener((obs, o, n) -> updateDone(n));
+        }
+        return doneProperty;
+    }
+
+    // The status column follows the Done checkbox before anyone hears of the change.
+    private void updateDone(boolean value) {
+        changed(TaskField.DONE, !value, value, () -> {
+            done = value;
+            status = value ? "Done" : "Pending";
+            if (statusProperty != null) {
+                statusProperty.set(status);
+            }
+        });
+    }
 
+    // ---- category ----
+
+    public String getCategory() { return category; }
+
+    public void setCategory(String value) {
+        if (categoryProperty != null) {
+            categoryProperty.set(value);
+        } else if (!Objects.equals(category, value)) {
+            updateCategory(value);
+        }
+    }
+
+    public StringProperty categoryProperty() {
+        if (categoryProperty == null) {
+            categoryProperty = new SimpleStringProperty(this, "category", category);
+            categoryProperty.addListener((obs, o, n) -> updateCategory(n));
+        }
+        return categoryProperty;
+    }
+
+    private void updateCategory(String value) {
+        String old = category;
+        changed(TaskField.CATEGORY, old, value, () -> category = value);
+    }
+
+    // ---- time ----
+
+    public LocalTime getTime() { return time; }
+
+    public void setTime(LocalTime value) {
+        if (timeProperty != null) {
+            timeProperty.set(value);
+        } else if (!Objects.equals(time, value)) {
+            updateTime(value);
+        }
+    }
+
+    public ObjectProperty<LocalTime> timeProperty() {
+        if (timeProperty == null) {
+            timeProperty = new SimpleObjectProperty<>(this, "time", time);
+            timeProperty.addListener((obs, o, n) -> updateTime(n));
+        }
+        return timeProperty;
+    }
+
+    private void updateTime(LocalTime value) {
+        LocalTime old = time;
+        changed(TaskField.TIME, old, value, () -> time = value);
+    }
+
+    // ---- duration, in minutes ----
+
+    public int getDuration() { return duration; }
+
+    public void setDuration(int value) {
+        if (durationProperty != null) {
+            durationProperty.set(value);
+        } else if (duration != value) {
+            updateDuration(value);
+        }
+    }
+
+    public IntegerProperty durationProperty() {
+        if (durationProperty == null) {
+            durationProperty = new SimpleIntegerProperty(this, "duration", duration);
+            durationProperty.addListener((obs, o, n) -> updateDuration(n.intValue()));
+        }
+        return durationProperty;
+    }
+
+    private void updateDuration(int value) {
+        int old = duration;
+        changed(TaskField.DURATION, old, value, () -> duration = value);
+    }
+
+    // ---- description ----
+
+    public String getDescription() { return description; }
+
+    public void setDescription(String value) {
+        if (descriptionProperty != null) {
+            descriptionProperty.set(value);
+        } else if (!Objects.equals(description, value)) {
+            updateDescription(value);
+        }
+    }
+
+    public StringProperty descriptionProperty() {
+        if (descriptionProperty == null) {
+            descriptionProperty = new SimpleStringProperty(this, "description", description);
+            descriptionProperty.addListener((obs, o, n) -> updateDescription(n));
+        }
+        return descriptionProperty;
+    }
+
+    private void updateDescription(String value) {
+        String old = description;
+        changed(TaskField.DESCRIPTION, old, value, () -> description = value);
+    }
+
+    // ---- tags: free text as typed, e.g. "home, urgent"; SearchIndex splits it into words ----
+
+    public String getTags() { return tags; }
+
+    public void setTags(String value) {
+        if (tagsProperty != null) {
+            tagsProperty.set(value);
+        } else if (!Objects.equals(tags, value)) {
+            updateTags(value);
+        }
+    }
+
+    public StringProperty tagsProperty() {
+        if (tagsProperty == null) {
+            tagsProperty = new SimpleStringProperty(this, "tags", tags);
+            tagsProperty.addListener((obs, o, n) -> updateTags(n));
+        }
+        return tagsProperty;
+    }
+
+    private void updateTags(String value) {
+        String old = tags;
+        changed(TaskField.TAGS, old, value, () -> tags = value);
+    }
+
+    // ---- recurrence ----
+
+    // A recurring task stands for its whole series; the planner shows generated
+    // occurrences on the calendar instead of the task itself. Set the rule before
+    // the task is added to the planner.
+    public RecurrenceRule getRecurrence() { return recurrence; }
+    public void setRecurrence(RecurrenceRule recurrence) { this.recurrence = recurrence; }
+
+    // For a generated occurrence, the recurring task it belongs to; otherwise null.
+    public Task getSeries() { return series; }
+    void setSeries(Task series) { this.series = series; }
+
+    // Occurrences ticked off individually are the only per-occurrence state a series keeps.
+    public boolean isOccurrenceDone(LocalDate date) {
+        return doneOccurrences != null && doneOccurrences.contains(date);
+    }
+
+    public boolean setOccurrenceDone(LocalDate date, boolean isDone) {
+        if (isDone) {
+            if (doneOccurrences == null) {
+                doneOccurrences = new TreeSet<>();
+            }
+            return doneOccurrences.add(date);
+        }
+        return doneOccurrences != null && doneOccurrences.remove(date);
+    }
+
+    public Set<LocalDate> getDoneOccurrences() {
+        return doneOccurrences == null ? Collections.emptySet() : Collections.unmodifiableSet(doneOccurrences);
+    }
+
+    // Identity shared across workstations by sync; assigned on first use and kept by the store.
+    public UUID getUid() {
+        if (uid == null) {
+            uid = UUID.randomUUID();
+        }
+        return uid;
+    }
+    public void setUid(UUID uid) { this.uid = uid; }
 }
@@ -0,0 +1,85 @@
+import java.time.LocalDate;
+
+// One change to the planner, with enough of the old state to reverse it. The
+// kinds line up with TaskStore's journal ops, so a journal and the undo history
+// can describe changes the same way. Records are immutable and hold the live
+// Task they touched, not a copy, so each costs a few dozen bytes.
+public final class TaskChange {
+    public enum Kind { ADD_TASK, REMOVE_TASK, SET_FIELD, SET_OCCURRENCE_DONE, ADD_CATEGORY, REMOVE_CATEGORY }
+
+    private final Kind kind;
+    private final Task task;
+    private final TaskField field;
+    private final Object oldValue;
+    private final Object newValue;
+    private final String category;
+    private final LocalDate date;
+
+    private TaskChange(Kind kind, Task task, TaskField field, Object oldValue, Object newValue,
+                       String category, LocalDate date) {
+        this.kind = kind;
+        this.task = task;
+        this.field = field;
+        this.oldValue = oldValue;
+        this.newValue = newValue;
+        this.category = category;
+        this.date = date;
+    }
+
+    public static TaskChange taskAdded(Task task) {
+        return new TaskChange(Kind.ADD_TASK, task, null, null, null, null, null);
+    }
+
+    public static TaskChange taskRemoved(Task task) {
+        return new TaskChange(Kind.REMOVE_TASK, task, null, null, null, null, null);
+    }
+
+    public static TaskChange fieldSet(Task task, TaskField field, Object oldValue, Object newValue) {
+        return new TaskChange(Kind.SET_FIELD, task, field, oldValue, newValue, null, null);
+    }
+
+    public static TaskChange occurrenceDone(Task series, LocalDate date, boolean done) {
+        return new TaskChange(Kind.SET_OCCURRENCE_DONE, series, null, !done, done, null, date);
+    }
+
+    public static TaskChange categoryAdded(String category) {
+        return new TaskChange(Kind.ADD_CATEGORY, null, null, null, null, category, null);
+    }
+
+    public static TaskChange categoryRemoved(String category) {
+        return new TaskChange(Kind.REMOVE_CATEGORY, null, null, null, null, category, null);
+    }
+
+    public Kind getKind() { return kind; }
+    public Task getTask() { return task; }
+    public TaskField getField() { return field; }
+    public Object getOldValue() { return oldValue; }
+    public Object getNewValue() { return newValue; }
+    public String getCategory() { return category; }
+    public LocalDate getDate() { return date; }
+
+    // The change that reverses this one.
+    public TaskChange inverse() {
+        return switch (kind) {
+            case ADD_TASK -> taskRemoved(task);
+            case REMOVE_TASK -> taskAdded(task);
+            case SET_FIELD -> fieldSet(task, field, newValue, oldValue);
+            case SET_OCCURRENCE_DONE -> occurrenceDone(task, date, (Boolean) oldValue);
+            case ADD_CATEGORY -> categoryRemoved(category);
+            case REMOVE_CATEGORY -> categoryAdded(category);
+        };
+    }
+
+    // Makes this change through the planner's normal mutators, so every index,
+    // the store and the views see it like any other edit.
+    public void applyTo(PlannerService planner) {
+        switch (kind) {
+            case ADD_TASK -> planner.addTask(task);
+            case REMOVE_TASK -> planner.removeTask(task);
+            case SET_FIELD -> planner.setField(task, field, newValue);
+            case SET_OCCURRENCE_DONE -> planner.setOccurrenceDone(task, date, (Boolean) newValue);
+            case ADD_CATEGORY -> planner.addCategory(category);
+            case REMOVE_CATEGORY -> planner.removeCategory(category);
+        }
+    }
+}
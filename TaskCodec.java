@@ -0,0 +1,382 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Row formats for bulk import/export: CSV with a header line, and JSON Lines
+// with one flat object per task (iCalendar lives in IcsCodec). Both readers are streaming and hold at most
+// one record in memory.
+public final class TaskCodec {
+    public enum Format {
+        CSV, JSON_LINES, ICS;
+
+        public static Format forFileName(String fileName) {
+            String lower = fileName.toLowerCase(Locale.ROOT);
+            if (lower.endsWith(".ics") || lower.endsWith(".ical")) {
+                return ICS;
+            }
+            return lower.endsWith(".jsonl") || lower.endsWith(".ndjson") || lower.endsWith(".json") ? JSON_LINES : CSV;
+        }
+    }
+
+    public static final List<String> FIELDS = List.of("name", "date", "priority", "status", "category", "done", "time", "duration",
+            "description", "tags", "recurrence");
+
+    private TaskCodec() {
+    }
+
+    public static Map<String, String> fields(Task task) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("name", task.getName());
+        fields.put("date", task.getDate());
+        fields.put("priority", task.getPriority());
+        fields.put("status", task.getStatus());
+        fields.put("category", task.getCategory());
+        fields.put("done", String.valueOf(task.isDone()));
+        fields.put("time", task.getTime() == null ? null : task.getTime().toString());
+        fields.put("duration", task.getDuration() == 0 ? null : String.valueOf(task.getDuration()));
+        fields.put("description", task.getDescription());
+        fields.put("tags", task.getTags());
+        fields.put("recurrence", task.getRecurrence() == null ? null : task.getRecurrence().toString());
+        return fields;
+    }
+
+    public static Task toTask(Map<String, String> fields) {
+        String name = fields.get("name");
+        if (name == null || name.isBlank()) {
+            return null;
+        }
+        boolean done = Boolean.parseBoolean(fields.get("done")) || "Done".equalsIgnoreCase(fields.get("status"));
+        Task task = new Task(name, fields.get("date"),
+                orDefault(fields.get("priority"), "Medium"), done ? "Done" : "Pending", emptyToNull(fields.get("category")),
+                parseTime(fields.get("time")), parseDuration(fields.get("duration")));
+        task.setDone(done);
+        task.setDescription(emptyToNull(fields.get("description")));
+        task.setTags(emptyToNull(fields.get("tags")));
+        task.setRecurrence(parseRecurrence(fields.get("recurrence")));
+        return task;
+    }
+
+    // ---- CSV ----
+
+    public static String csvHeader() {
+        return String.join(",", FIELDS);
+    }
+
+    public static void appendCsv(StringBuilder out, Map<String, String> fields) {
+        boolean first = true;
+        for (String field : FIELDS) {
+            if (!first) {
+                out.append(',');
+            }
+            first = false;
+            String value = fields.get(field);
+            if (value == null) {
+                continue;
+            }
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                out.append('"').append(value.replace("\"", "\"\"")).append('"');
+            } else {
+                out.append(value);
+            }
+        }
+        out.append('\n');
+    }
+
+    // RFC 4180 reader: quoted fields may contain commas, doubled quotes and newlines.
+    public static final class CsvReader {
+        private final Reader in;
+        private final char[] buffer = new char[8192];
+        private int pos;
+        private int limit;
+        private List<String> header;
+
+        public CsvReader(Reader in) {
+            this.in = in;
+        }
+
+        // Next record keyed by header name, or null at end of input. A first line
+        // that does not name a "name" column is read as data in FIELDS order.
+        public Map<String, String> next() throws IOException {
+            List<String> record = nextRecord();
+            if (header == null) {
+                if (record == null) {
+                    return null;
+                }
+                List<String> lowered = new ArrayList<>();
+                for (String column : record) {
+                    lowered.add(column.trim().toLowerCase(Locale.ROOT));
+                }
+                if (lowered.contains("name")) {
+                    header = lowered;
+                    record = nextRecord();
+                } else {
+                    header = FIELDS;
+                }
+            }
+            while (record != null && record.size() == 1 && record.get(0).isEmpty()) {
+                record = nextRecord(); // blank line
+            }
+            if (record == null) {
+                return null;
+            }
+            Map<String, String> fields = new LinkedHashMap<>();
+            for (int i = 0; i < header.size() && i < record.size(); i++) {
+                fields.put(header.get(i), record.get(i));
+            }
+            return fields;
+        }
+
+        private List<String> nextRecord() throws IOException {
+            int c = read();
+            if (c < 0) {
+                return null;
+            }
+            List<String> record = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c < 0) {
+                        record.add(field.toString());
+                        return record;
+                    }
+                    if (c == '"') {
+                        int nextChar = read();
+                        if (nextChar == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            c = nextChar;
+                            continue;
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c < 0 || c == '\n') {
+                    record.add(field.toString());
+                    return record;
+                } else if (c == '\r') {
+                    // swallowed; the following '\n' ends the record
+                } else if (c == ',') {
+                    record.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                } else {
+                    field.append((char) c);
+                }
+                c = read();
+            }
+        }
+
+        private int read() throws IOException {
+            if (pos == limit) {
+                limit = in.read(buffer, 0, buffer.length);
+                pos = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return -1;
+                }
+            }
+            return buffer[pos++];
+        }
+    }
+
+    // ---- JSON Lines ----
+
+    public static void appendJson(StringBuilder out, Map<String, String> fields) {
+        out.append('{');
+        boolean first = true;
+        for (Map.Entry<String, String> entry : fields.entrySet()) {
+            if (entry.getValue() == null) {
+                continue;
+            }
+            if (!first) {
+                out.append(',');
+            }
+            first = false;
+            appendJsonString(out, entry.getKey());
+            out.append(':');
+            if (entry.getKey().equals("done") || entry.getKey().equals("duration")) {
+                out.append(entry.getValue());
+            } else {
+                appendJsonString(out, entry.getValue());
+            }
+        }
+        out.append("}\n");
+    }
+
+    private static void appendJsonString(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            switch (ch) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (ch < 0x20) {
+                        out.append(String.format("\\u%04x", (int) ch));
+                    } else {
+                        out.append(ch);
+                    }
+                }
+            }
+        }
+        out.append('"');
+    }
+
+    // Parses one flat JSON object. Nested values are not supported; numbers,
+    // booleans and null are returned as their literal text (null as null).
+    // Malformed input throws IllegalArgumentException.
+    public static Map<String, String> parseJsonObject(String line) {
+        try {
+            return parseJson(line);
+        } catch (IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Truncated JSON: " + line, e); // an escape cut off at the end
+        }
+    }
+
+    private static Map<String, String> parseJson(String line) {
+        JsonCursor cursor = new JsonCursor(line);
+        Map<String, String> fields = new LinkedHashMap<>();
+        cursor.expect('{');
+        if (cursor.peek() == '}') {
+            return fields;
+        }
+        while (true) {
+            String key = cursor.string();
+            cursor.expect(':');
+            fields.put(key.toLowerCase(Locale.ROOT), cursor.value());
+            char ch = cursor.nextToken();
+            if (ch == '}') {
+                return fields;
+            }
+            if (ch != ',') {
+                throw new IllegalArgumentException("Expected ',' or '}' at " + cursor.pos + ": " + line);
+            }
+        }
+    }
+
+    private static final class JsonCursor {
+        private final String text;
+        private int pos;
+
+        JsonCursor(String text) {
+            this.text = text;
+        }
+
+        char peek() {
+            skipWhitespace();
+            if (pos >= text.length()) {
+                throw new IllegalArgumentException("Unexpected end of JSON: " + text);
+            }
+            return text.charAt(pos);
+        }
+
+        char nextToken() {
+            char ch = peek();
+            pos++;
+            return ch;
+        }
+
+        void expect(char expected) {
+            if (nextToken() != expected) {
+                throw new IllegalArgumentException("Expected '" + expected + "' at " + (pos - 1) + ": " + text);
+            }
+        }
+
+        String value() {
+            char ch = peek();
+            if (ch == '"') {
+                return string();
+            }
+            int start = pos;
+            while (pos < text.length() && ",}] \t".indexOf(text.charAt(pos)) < 0) {
+                pos++;
+            }
+            String literal = text.substring(start, pos);
+            if (literal.isEmpty() || ch == '{' || ch == '[') {
+                throw new IllegalArgumentException("Unsupported JSON value at " + start + ": " + text);
+            }
+            return literal.equals("null") ? null : literal;
+        }
+
+        String string() {
+            expect('"');
+            StringBuilder sb = new StringBuilder();
+            while (pos < text.length()) {
+                char ch = text.charAt(pos++);
+                if (ch == '"') {
+                    return sb.toString();
+                }
+                if (ch != '\\') {
+                    sb.append(ch);
+                    continue;
+                }
+                char escaped = text.charAt(pos++);
+                switch (escaped) {
+                    case 'n' -> sb.append('\n');
+                    case 'r' -> sb.append('\r');
+                    case 't' -> sb.append('\t');
+                    case 'b' -> sb.append('\b');
+                    case 'f' -> sb.append('\f');
+                    case 'u' -> {
+                        sb.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        pos += 4;
+                    }
+                    default -> sb.append(escaped);
+                }
+            }
+            throw new IllegalArgumentException("Unterminated JSON string: " + text);
+        }
+
+        private void skipWhitespace() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+    }
+
+    // Unreadable times, durations and rules are dropped rather than failing the whole import.
+    private static LocalTime parseTime(String value) {
+        try {
+            return value == null || value.isBlank() ? null : LocalTime.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    // A rule the planner cannot repeat exactly is left off; TaskTransfer counts those.
+    private static RecurrenceRule parseRecurrence(String value) {
+        try {
+            return value == null || value.isBlank() ? null : RecurrenceRule.parseRRule(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static int parseDuration(String value) {
+        try {
+            return value == null || value.isBlank() ? 0 : Math.max(0, Integer.parseInt(value.trim()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static String orDefault(String value, String fallback) {
+        return value == null || value.isBlank() ? fallback : value;
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+}
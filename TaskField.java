@@ -0,0 +1,5 @@
+// Task fields whose changes PlannerService reports to its listeners. TaskStore
+// journals a field by its ordinal, so new fields go at the end.
+public enum TaskField {
+    NAME, DATE, PRIORITY, DONE, CATEGORY, TIME, DURATION, DESCRIPTION, TAGS
+}
@@ -0,0 +1,80 @@
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+// Date-bucketed view of the task list, kept in sync with it so the calendar
+// can look up a day or a range without scanning every task. Recurring tasks are
+// left to RecurrenceIndex, which places their occurrences instead.
+public class TaskIndex implements TaskListener {
+    private final NavigableMap<LocalDate, List<Task>> byDate = new TreeMap<>();
+    private final Map<Task, LocalDate> keys = new IdentityHashMap<>();
+
+    public List<Task> tasksOn(LocalDate date) {
+        List<Task> bucket = byDate.get(date);
+        return bucket == null ? Collections.emptyList() : Collections.unmodifiableList(bucket);
+    }
+
+    public boolean hasTasksOn(LocalDate date) {
+        return byDate.containsKey(date);
+    }
+
+    // Both ends inclusive; only days that actually have tasks are present.
+    public NavigableMap<LocalDate, List<Task>> tasksBetween(LocalDate from, LocalDate to) {
+        return Collections.unmodifiableNavigableMap(byDate.subMap(from, true, to, true));
+    }
+
+    @Override
+    public void taskAdded(Task task) {
+        insert(task, parse(task.getDate()));
+    }
+
+    @Override
+    public void taskRemoved(Task task) {
+        remove(task);
+    }
+
+    @Override
+    public void taskChanged(Task task, TaskField field, Object oldValue, Object newValue) {
+        if (field == TaskField.DATE) {
+            remove(task);
+            insert(task, parse((String) newValue));
+        }
+    }
+
+    private void insert(Task task, LocalDate date) {
+        if (date == null || task.getRecurrence() != null) {
+            return;
+        }
+        keys.put(task, date);
+        byDate.computeIfAbsent(date, d -> new ArrayList<>()).add(task);
+    }
+
+    private void remove(Task task) {
+        LocalDate date = keys.remove(task);
+        if (date == null) {
+            return;
+        }
+        List<Task> bucket = byDate.get(date);
+        bucket.remove(task);
+        if (bucket.isEmpty()) {
+            byDate.remove(date);
+        }
+    }
+
+    static LocalDate parse(String date) {
+        if (date == null || date.isBlank()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(date);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+import java.time.LocalDate;
+
+// Receives task-list and task-field changes from PlannerService. Callbacks run on
+// the mutating thread while the service's write lock is held, so implementations
+// must be quick and must not call back into the service's query methods from
+// another thread and wait for them.
+public interface TaskListener {
+    default void taskAdded(Task task) {
+    }
+
+    default void taskRemoved(Task task) {
+    }
+
+    default void taskChanged(Task task, TaskField field, Object oldValue, Object newValue) {
+    }
+
+    // One occurrence of a recurring task was ticked or unticked.
+    default void occurrenceChanged(Task series, LocalDate date, boolean done) {
+    }
+
+    // Follows the callbacks for one list change, field edit or occurrence tick,
+    // so listeners can treat a batch (such as one import chunk) as a unit.
+    default void changeComplete() {
+    }
+}
@@ -0,0 +1,347 @@
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Weekly and monthly productivity reports. The period's tasks are copied into
+// plain arrays on the calling (UI) thread, and only the tally over that copy
+// runs on the fork-join pool, so the workers never touch a live Task. The period is split into
+// ranges that are tallied in parallel and then merged. Finished reports are
+// cached per period. A change drops only the cached weeks and months that
+// contain the dates it touched; a change to a recurring series drops them all.
+//
+// The cache and the listener callbacks live on the UI thread. Job results
+// complete on the UI executor.
+public class TaskReports implements TaskListener {
+    public enum Period { WEEK, MONTH }
+
+    private static final String[] PRIORITIES = { "High", "Medium", "Low" };
+    private static final int OTHER_PRIORITY = PRIORITIES.length;
+    private static final int LEAF_SIZE = 4_096;
+
+    // The tallies for one period. Category and priority rows are {total, done}.
+    public static final class Report {
+        public final Period period;
+        public final LocalDate from;
+        public final LocalDate to;
+        public final LocalDate computedOn;
+        public final int total;
+        public final int done;
+        public final int overdue;
+        public final Map<String, int[]> byCategory;
+        public final int[][] byPriority;
+
+        private Report(Period period, LocalDate from, LocalDate to, LocalDate computedOn, Tally tally) {
+            this.period = period;
+            this.from = from;
+            this.to = to;
+            this.computedOn = computedOn;
+            this.total = tally.total;
+            this.done = tally.done;
+            this.overdue = tally.overdue;
+            this.byCategory = Collections.unmodifiableMap(new TreeMap<>(tally.categories));
+            this.byPriority = tally.priorities;
+        }
+
+        public static double rate(int[] totalAndDone) {
+            return totalAndDone[0] == 0 ? 0 : totalAndDone[1] / (double) totalAndDone[0];
+        }
+
+        public String text() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(period == Period.WEEK ? "Week " : "Month ").append(from).append(" to ").append(to).append("\n\n");
+            sb.append(String.format("Tasks %d, done %d (%.0f%%), overdue %d%n%n", total, done,
+                    total == 0 ? 0.0 : 100.0 * done / total, overdue));
+            sb.append("By category\n");
+            for (Map.Entry<String, int[]> entry : byCategory.entrySet()) {
+                int[] row = entry.getValue();
+                sb.append(String.format("  %-16s %6d tasks  %5.0f%% done%n", entry.getKey(), row[0], 100 * rate(row)));
+            }
+            sb.append("\nBy priority\n");
+            for (int p = 0; p <= OTHER_PRIORITY; p++) {
+                int[] row = byPriority[p];
+                if (row[0] > 0) {
+                    sb.append(String.format("  %-16s %6d tasks  %5.0f%% done%n",
+                            p < OTHER_PRIORITY ? PRIORITIES[p] : "Other", row[0], 100 * rate(row)));
+                }
+            }
+            return sb.toString();
+        }
+    }
+
+    // A requested report. Cancelling stops the workers at their next range.
+    public static final class Job {
+        private final Period period;
+        private final LocalDate from;
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private final CompletableFuture<Report> result = new CompletableFuture<>();
+        private boolean stale; // UI thread only
+
+        private Job(Period period, LocalDate from) {
+            this.period = period;
+            this.from = from;
+        }
+
+        public void cancel() {
+            cancelled.set(true);
+            result.cancel(false);
+        }
+
+        public boolean isCancelled() { return cancelled.get(); }
+        public CompletableFuture<Report> result() { return result; }
+    }
+
+    private final PlannerService planner;
+    private final Executor uiExecutor;
+    private final Map<Period, Map<LocalDate, Report>> cache = new EnumMap<>(Period.class);
+    private final List<Job> running = new ArrayList<>();
+
+    // uiExecutor receives finished reports; pass Platform::runLater from the app.
+    public TaskReports(PlannerService planner, Executor uiExecutor) {
+        this.planner = planner;
+        this.uiExecutor = uiExecutor;
+        for (Period period : Period.values()) {
+            cache.put(period, new HashMap<>());
+        }
+        planner.addListener(this);
+    }
+
+    public static LocalDate periodStart(Period period, LocalDate day) {
+        return period == Period.WEEK ? day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)) : day.withDayOfMonth(1);
+    }
+
+    public static LocalDate periodEnd(Period period, LocalDate day) {
+        LocalDate start = periodStart(period, day);
+        return period == Period.WEEK ? start.plusDays(6) : start.plusMonths(1).minusDays(1);
+    }
+
+    // The report for the period containing day, from the cache when nothing in
+    // the period has changed since it was computed. Overdue means pending and
+    // dated before today. Call it on the UI thread.
+    public Job request(Period period, LocalDate day, LocalDate today) {
+        LocalDate from = periodStart(period, day);
+        LocalDate to = periodEnd(period, day);
+        Job job = new Job(period, from);
+        Report cached = cache.get(period).get(from);
+        if (cached != null && cached.computedOn.equals(today)) {
+            job.result.complete(cached);
+            return job;
+        }
+        running.add(job);
+        Rows rows = snapshot(from, to);
+        ForkJoinPool.commonPool().execute(() -> {
+            Report report = null;
+            Throwable error = null;
+            try {
+                Tally tally = ForkJoinPool.commonPool().invoke(new Aggregate(rows, 0, rows.size, today.toEpochDay(), job));
+                if (!job.isCancelled()) {
+                    report = new Report(period, from, to, today, tally);
+                }
+            } catch (RuntimeException e) {
+                error = e;
+            }
+            Report finished = report;
+            Throwable failure = error;
+            uiExecutor.execute(() -> finish(job, finished, failure));
+        });
+        return job;
+    }
+
+    private void finish(Job job, Report report, Throwable error) {
+        running.remove(job);
+        if (error != null) {
+            job.result.completeExceptionally(error);
+        } else if (report == null) {
+            job.result.completeExceptionally(new CancellationException());
+        } else {
+            if (!job.stale) {
+                cache.get(job.period).put(job.from, report);
+            }
+            job.result.complete(report);
+        }
+    }
+
+    // ---- invalidation ----
+
+    @Override
+    public void taskAdded(Task task) {
+        invalidate(task, task.getDate());
+    }
+
+    @Override
+    public void taskRemoved(Task task) {
+        invalidate(task, task.getDate());
+    }
+
+    @Override
+    public void taskChanged(Task task, TaskField field, Object oldValue, Object newValue) {
+        switch (field) {
+            case DATE -> {
+                invalidate(task, (String) oldValue);
+                invalidate(task, (String) newValue);
+            }
+            case DONE, PRIORITY, CATEGORY -> invalidate(task, task.getDate());
+            default -> { }
+        }
+    }
+
+    @Override
+    public void occurrenceChanged(Task series, LocalDate date, boolean done) {
+        invalidate(date);
+    }
+
+    private void invalidate(Task task, String date) {
+        if (task.getRecurrence() != null) {
+            for (Map<LocalDate, Report> reports : cache.values()) {
+                reports.clear();
+            }
+            for (Job job : running) {
+                job.stale = true;
+            }
+        } else {
+            LocalDate parsed = TaskIndex.parse(date);
+            if (parsed != null) {
+                invalidate(parsed);
+            }
+        }
+    }
+
+    private void invalidate(LocalDate date) {
+        for (Period period : Period.values()) {
+            LocalDate from = periodStart(period, date);
+            cache.get(period).remove(from);
+            for (Job job : running) {
+                if (job.period == period && job.from.equals(from)) {
+                    job.stale = true;
+                }
+            }
+        }
+    }
+
+    // ---- aggregation ----
+
+    // The fields a report reads, one array slot per task.
+    private static final class Rows {
+        final int size;
+        final String[] categories;
+        final byte[] priorities;
+        final boolean[] done;
+        final long[] epochDays;
+
+        Rows(int size) {
+            this.size = size;
+            this.categories = new String[size];
+            this.priorities = new byte[size];
+            this.done = new boolean[size];
+            this.epochDays = new long[size];
+        }
+    }
+
+    // Runs on the UI thread, where the tasks are edited.
+    private Rows snapshot(LocalDate from, LocalDate to) {
+        List<Task> tasks = planner.tasksBetween(from, to);
+        Rows rows = new Rows(tasks.size());
+        for (int i = 0; i < rows.size; i++) {
+            Task task = tasks.get(i);
+            rows.categories[i] = task.getCategory() == null ? "(none)" : task.getCategory();
+            rows.priorities[i] = (byte) priorityIndex(task.getPriority());
+            rows.done[i] = task.isDone();
+            LocalDate date = TaskIndex.parse(task.getDate());
+            rows.epochDays[i] = date == null ? Long.MAX_VALUE : date.toEpochDay();
+        }
+        return rows;
+    }
+
+    private static int priorityIndex(String priority) {
+        for (int p = 0; p < PRIORITIES.length; p++) {
+            if (PRIORITIES[p].equals(priority)) {
+                return p;
+            }
+        }
+        return OTHER_PRIORITY;
+    }
+
+    private static final class Tally {
+        final Map<String, int[]> categories = new HashMap<>();
+        final int[][] priorities = new int[OTHER_PRIORITY + 1][2];
+        int total;
+        int done;
+        int overdue;
+
+        Tally merge(Tally other) {
+            for (Map.Entry<String, int[]> entry : other.categories.entrySet()) {
+                int[] row = categories.computeIfAbsent(entry.getKey(), c -> new int[2]);
+                row[0] += entry.getValue()[0];
+                row[1] += entry.getValue()[1];
+            }
+            for (int p = 0; p <= OTHER_PRIORITY; p++) {
+                priorities[p][0] += other.priorities[p][0];
+                priorities[p][1] += other.priorities[p][1];
+            }
+            total += other.total;
+            done += other.done;
+            overdue += other.overdue;
+            return this;
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static final class Aggregate extends RecursiveTask<Tally> {
+        private final Rows rows;
+        private final int from;
+        private final int to;
+        private final long today;
+        private final Job job;
+
+        Aggregate(Rows rows, int from, int to, long today, Job job) {
+            this.rows = rows;
+            this.from = from;
+            this.to = to;
+            this.today = today;
+            this.job = job;
+        }
+
+        @Override
+        protected Tally compute() {
+            if (to - from > LEAF_SIZE) {
+                int mid = (from + to) >>> 1;
+                Aggregate left = new Aggregate(rows, from, mid, today, job);
+                left.fork();
+                Tally right = new Aggregate(rows, mid, to, today, job).compute();
+                return left.join().merge(right);
+            }
+            Tally tally = new Tally();
+            if (job.isCancelled()) {
+                return tally;
+            }
+            for (int i = from; i < to; i++) {
+                boolean done = rows.done[i];
+                int[] category = tally.categories.computeIfAbsent(rows.categories[i], c -> new int[2]);
+                int[] priority = tally.priorities[rows.priorities[i]];
+                category[0]++;
+                priority[0]++;
+                tally.total++;
+                if (done) {
+                    category[1]++;
+                    priority[1]++;
+                    tally.done++;
+                } else if (rows.epochDays[i] < today) {
+                    tally.overdue++;
+                }
+            }
+            return tally;
+        }
+    }
+}
@@ -0,0 +1,757 @@
+import javafx.collections.ListChangeListener;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+// On-disk home of the task list: a binary snapshot plus an append-only journal of
+// the changes made since it was written. The journal is written by a background
+// thread that group-commits whatever has queued up with a single fsync, and is
+// folded back into a fresh snapshot once it grows past COMPACT_AFTER records.
+// A group commit that fails to reach the disk is kept and retried; nothing the
+// UI has handed over is dropped while the process is running.
+public class TaskStore implements AutoCloseable {
+    private static final int SNAPSHOT_MAGIC = 0x44505331; // "DPS1"
+    private static final int FORMAT_VERSION = 6;
+    private static final int COMPACT_AFTER = 50_000;
+    private static final long RETRY_MILLIS = 2_000;
+    private static final int ATTEMPTS_AT_SHUTDOWN = 3;
+
+    private static final byte OP_ADD_TASK = 1;
+    private static final byte OP_SET_DONE = 2;
+    private static final byte OP_ADD_CATEGORY = 3;
+    private static final byte OP_REMOVE_CATEGORY = 4;
+    private static final byte OP_SET_OCCURRENCE_DONE = 5;
+    private static final byte OP_REMOVE_TASK = 6;
+    private static final byte OP_SET_FIELD = 7;
+
+    static final short NO_TIME = -1;
+
+    public static final class Contents {
+        public final List<Task> tasks;
+        public final List<String> categories;
+        public final boolean fresh;
+
+        private Contents(List<Task> tasks, List<String> categories, boolean fresh) {
+            this.tasks = tasks;
+            this.categories = categories;
+            this.fresh = fresh;
+        }
+    }
+
+    // Plain copy of a task. The FX thread hands a new one to the writer with each
+    // add and never touches it again; from then on the writer keeps it up to date.
+    private static final class StoredTask {
+        String name;
+        String date;
+        String priority;
+        String category;
+        String status;
+        boolean done;
+        int startMinute; // minutes after midnight, or NO_TIME
+        int duration;
+        String description;
+        String tags;
+        final String recurrence;
+        private Set<Integer> doneOccurrences; // epoch days ticked off one by one; null until the first
+        UUID uid;
+
+        StoredTask(String name, String date, String priority, String status, boolean done, String category,
+                   int startMinute, int duration, String description, String tags, String recurrence, UUID uid) {
+            this.name = name;
+            this.date = date;
+            this.priority = priority;
+            this.status = status;
+            this.done = done;
+            this.category = category;
+            this.startMinute = startMinute;
+            this.duration = duration;
+            this.description = description;
+            this.tags = tags;
+            this.recurrence = recurrence;
+            this.uid = uid;
+        }
+
+        Set<Integer> doneOccurrences() {
+            return doneOccurrences == null ? Set.of() : doneOccurrences;
+        }
+
+        void setOccurrenceDone(int epochDay, boolean isDone) {
+            if (isDone) {
+                if (doneOccurrences == null) {
+                    doneOccurrences = new TreeSet<>();
+                }
+                doneOccurrences.add(epochDay);
+            } else if (doneOccurrences != null) {
+                doneOccurrences.remove(epochDay);
+            }
+        }
+    }
+
+    private static final class Change {
+        final byte op;
+        final int id;
+        final StoredTask task;
+        final String category;
+        final boolean done;
+        final int epochDay; // the occurrence, for OP_SET_OCCURRENCE_DONE
+        final TaskField field; // for OP_SET_FIELD, with value: a String, or an Integer for TIME and DURATION
+        final Object value;
+
+        Change(byte op, int id, StoredTask task, String category, boolean done) {
+            this(op, id, task, category, done, 0);
+        }
+
+        Change(byte op, int id, StoredTask task, String category, boolean done, int epochDay) {
+            this(op, id, task, category, done, epochDay, null, null);
+        }
+
+        Change(byte op, int id, StoredTask task, String category, boolean done, int epochDay,
+               TaskField field, Object value) {
+            this.op = op;
+            this.id = id;
+            this.task = task;
+            this.category = category;
+            this.done = done;
+            this.epochDay = epochDay;
+            this.field = field;
+            this.value = value;
+        }
+
+        static Change fieldSet(int id, TaskField field, Object value) {
+            return new Change(OP_SET_FIELD, id, null, null, false, 0, field, value);
+        }
+    }
+
+    private static final Change SHUTDOWN = new Change((byte) 0, 0, null, null, false);
+
+    private final Path snapshotFile;
+    private final Path journalFile;
+
+    // Writer-thread state: the contents of snapshot + journal, used for compaction.
+    // Kept by id, so replaying a journal over a snapshot that already holds its
+    // changes just overwrites the same entries.
+    private final Map<Integer, StoredTask> stored = new TreeMap<>();
+    private final List<String> storedCategories = new ArrayList<>();
+    private int journalRecords;
+
+    // FX-thread state: which id each live task was journaled under.
+    private final Map<Task, Integer> ids = new IdentityHashMap<>();
+    private int nextId;
+    private boolean fresh;
+    private boolean uidsAssigned; // rows from before uids were stored; the next snapshot records them
+
+    private final BlockingQueue<Change> queue = new LinkedBlockingQueue<>();
+    private FileChannel journal;
+    private Thread writer;
+    private volatile Consumer<IOException> onWriteFailure = e -> { };
+
+    public TaskStore(Path directory) {
+        this.snapshotFile = directory.resolve("tasks.snapshot");
+        this.journalFile = directory.resolve("tasks.journal");
+    }
+
+    public static Path defaultDirectory() {
+        String configured = System.getProperty("planner.dataDir");
+        return configured != null ? Path.of(configured) : Path.of(System.getProperty("user.home"), ".daily-planner");
+    }
+
+    // Reads the snapshot and replays the journal, then starts the writer thread.
+    public Contents open() throws IOException {
+        Files.createDirectories(snapshotFile.getParent());
+        fresh = !Files.exists(snapshotFile) && !Files.exists(journalFile);
+        if (Files.exists(snapshotFile)) {
+            readSnapshot();
+        }
+        long validJournalBytes = Files.exists(journalFile) ? replayJournal() : 0;
+
+        journal = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        journal.truncate(validJournalBytes); // drop a torn tail left by a crash mid-write
+        journal.position(validJournalBytes);
+
+        List<Task> tasks = new ArrayList<>(stored.size());
+        for (Map.Entry<Integer, StoredTask> entry : stored.entrySet()) {
+            StoredTask s = entry.getValue();
+            if (s.uid == null) {
+                s.uid = UUID.randomUUID();
+                uidsAssigned = true;
+            }
+            Task task = new Task(s.name, s.date, s.priority, s.status, s.category,
+                    toTime(s.startMinute), s.duration);
+            task.setDone(s.done);
+            task.setDescription(s.description);
+            task.setTags(s.tags);
+            if (s.recurrence != null) {
+                task.setRecurrence(RecurrenceRule.parse(s.recurrence));
+                for (int day : s.doneOccurrences()) {
+                    task.setOccurrenceDone(LocalDate.ofEpochDay(day), true);
+                }
+            }
+            task.setUid(s.uid);
+            ids.put(task, entry.getKey());
+            tasks.add(task);
+            nextId = entry.getKey() + 1;
+        }
+
+        writer = new Thread(this::writeLoop, "task-store-writer");
+        writer.setDaemon(true);
+        writer.start();
+        return new Contents(tasks, new ArrayList<>(storedCategories), fresh);
+    }
+
+    // Starts journaling changes made through the planner. On a fresh store the
+    // current categories are recorded so the defaults survive a restart.
+    public void attach(PlannerService planner) {
+        if (fresh) {
+            for (String category : planner.categories()) {
+                categoryAdded(category);
+            }
+        }
+        planner.addListener(new TaskListener() {
+            @Override
+            public void taskAdded(Task task) {
+                if (!ids.containsKey(task)) {
+                    TaskStore.this.taskAdded(task);
+                }
+            }
+
+            @Override
+            public void taskRemoved(Task task) {
+                Integer id = ids.remove(task);
+                if (id != null) {
+                    queue.add(new Change(OP_REMOVE_TASK, id, null, null, false));
+                }
+            }
+
+            @Override
+            public void taskChanged(Task task, TaskField field, Object oldValue, Object newValue) {
+                Integer id = ids.get(task);
+                if (id == null) {
+                    return;
+                }
+                if (field == TaskField.DONE) {
+                    queue.add(new Change(OP_SET_DONE, id, null, null, (Boolean) newValue));
+                } else {
+                    queue.add(Change.fieldSet(id, field, journalValue(field, newValue)));
+                }
+            }
+
+            @Override
+            public void occurrenceChanged(Task series, LocalDate date, boolean done) {
+                Integer id = ids.get(series);
+                if (id != null) {
+                    queue.add(new Change(OP_SET_OCCURRENCE_DONE, id, null, null, done, (int) date.toEpochDay()));
+                }
+            }
+        });
+        planner.categories().addListener((ListChangeListener<String>) change -> {
+            while (change.next()) {
+                if (change.wasPermutated()) {
+                    continue;
+                }
+                for (String removed : change.getRemoved()) {
+                    queue.add(new Change(OP_REMOVE_CATEGORY, 0, null, removed, false));
+                }
+                for (String added : change.getAddedSubList()) {
+                    categoryAdded(added);
+                }
+            }
+        });
+    }
+
+    private void taskAdded(Task task) {
+        int id = nextId++;
+        ids.put(task, id);
+        LocalTime time = task.getTime();
+        StoredTask copy = new StoredTask(task.getName(), task.getDate(), task.getPriority(),
+                task.getStatus(), task.isDone(), task.getCategory(),
+                time == null ? NO_TIME : toMinute(time), task.getDuration(),
+                task.getDescription(), task.getTags(),
+                task.getRecurrence() == null ? null : task.getRecurrence().toString(), task.getUid());
+        queue.add(new Change(OP_ADD_TASK, id, copy, null, false));
+    }
+
+    // A field value as the journal holds it: due times as minute of day.
+    private static Object journalValue(TaskField field, Object value) {
+        return switch (field) {
+            case TIME -> value == null ? (int) NO_TIME : toMinute((LocalTime) value);
+            case DURATION -> ((Number) value).intValue();
+            default -> value;
+        };
+    }
+
+    // Called on the writer thread when a group commit first fails to reach the
+    // disk; the changes stay queued and are retried until a write succeeds.
+    public void setOnWriteFailure(Consumer<IOException> handler) {
+        onWriteFailure = handler;
+    }
+
+    private void categoryAdded(String category) {
+        queue.add(new Change(OP_ADD_CATEGORY, 0, null, category, false));
+    }
+
+    // Flushes everything queued so far, compacts, and stops the writer thread.
+    @Override
+    public void close() {
+        if (writer == null) {
+            return;
+        }
+        queue.add(SHUTDOWN);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writer = null;
+    }
+
+    private void writeLoop() {
+        List<Change> batch = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        boolean stopping = false;
+        int failures = 0;
+        while (true) {
+            try {
+                if (batch.isEmpty()) {
+                    batch.add(queue.take());
+                }
+                queue.drainTo(batch);
+            } catch (InterruptedException e) {
+                break;
+            }
+            buffer.clear();
+            for (Change change : batch) {
+                if (change == SHUTDOWN) {
+                    stopping = true;
+                } else {
+                    buffer = encode(change, buffer);
+                }
+            }
+            buffer.flip();
+            try {
+                append(buffer);
+            } catch (IOException e) {
+                // Keep the batch; the retry writes it again together with anything queued meanwhile.
+                if (failures++ == 0) {
+                    System.err.println("Task store: failed to write journal, retrying: " + e);
+                    onWriteFailure.accept(e);
+                }
+                if (stopping && failures >= ATTEMPTS_AT_SHUTDOWN) {
+                    System.err.println("Task store: giving up on " + (batch.size() - 1) + " unsaved changes at shutdown");
+                    break;
+                }
+                try {
+                    Thread.sleep(RETRY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    break;
+                }
+                continue;
+            }
+            failures = 0;
+            for (Change change : batch) {
+                if (change != SHUTDOWN) {
+                    apply(change);
+                    journalRecords++;
+                }
+            }
+            batch.clear();
+            if (journalRecords >= COMPACT_AFTER || (stopping && (journalRecords > 0 || uidsAssigned))) {
+                try {
+                    compact();
+                } catch (IOException e) {
+                    // The journal still holds everything; compaction is tried again later.
+                    System.err.println("Task store: failed to compact: " + e);
+                }
+            }
+            if (stopping) {
+                break;
+            }
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            System.err.println("Task store: failed to close journal: " + e);
+        }
+    }
+
+    // Writes one group commit and forces it to disk. On failure the journal is
+    // rewound to where the commit started, so the retry, which is at least as
+    // long, overwrites any partial record rather than following it.
+    private void append(ByteBuffer buffer) throws IOException {
+        long start = journal.position();
+        try {
+            while (buffer.hasRemaining()) {
+                journal.write(buffer);
+            }
+            journal.force(false);
+        } catch (IOException e) {
+            try {
+                journal.position(start);
+                journal.truncate(start);
+            } catch (IOException rewind) {
+                e.addSuppressed(rewind);
+            }
+            throw e;
+        }
+    }
+
+    private void apply(Change change) {
+        switch (change.op) {
+            case OP_ADD_TASK -> stored.put(change.id, change.task);
+            case OP_SET_DONE -> {
+                StoredTask task = stored.get(change.id);
+                if (task != null) {
+                    task.done = change.done;
+                    task.status = change.done ? "Done" : "Pending";
+                }
+            }
+            case OP_SET_OCCURRENCE_DONE -> {
+                StoredTask task = stored.get(change.id);
+                if (task != null) {
+                    task.setOccurrenceDone(change.epochDay, change.done);
+                }
+            }
+            case OP_SET_FIELD -> {
+                StoredTask task = stored.get(change.id);
+                if (task != null) {
+                    setField(task, change.field, change.value);
+                }
+            }
+            case OP_REMOVE_TASK -> stored.remove(change.id);
+            case OP_ADD_CATEGORY -> {
+                if (!storedCategories.contains(change.category)) {
+                    storedCategories.add(change.category);
+                }
+            }
+            case OP_REMOVE_CATEGORY -> storedCategories.remove(change.category);
+            default -> throw new IllegalStateException("Unknown journal op " + change.op);
+        }
+    }
+
+    private static void setField(StoredTask task, TaskField field, Object value) {
+        switch (field) {
+            case NAME -> task.name = (String) value;
+            case DATE -> task.date = (String) value;
+            case PRIORITY -> task.priority = (String) value;
+            case CATEGORY -> task.category = (String) value;
+            case TIME -> task.startMinute = (Integer) value;
+            case DURATION -> task.duration = (Integer) value;
+            case DESCRIPTION -> task.description = (String) value;
+            case TAGS -> task.tags = (String) value;
+        }
+    }
+
+    // Journal record: [int payload length][int crc32 of payload][payload]; the payload starts with the op byte.
+    private static ByteBuffer encode(Change change, ByteBuffer buffer) {
+        ByteBuffer payload = ByteBuffer.allocate(estimate(change));
+        payload.put(change.op);
+        switch (change.op) {
+            case OP_ADD_TASK -> {
+                payload.putInt(change.id);
+                putString(payload, change.task.name);
+                putString(payload, change.task.date);
+                putString(payload, change.task.priority);
+                putString(payload, change.task.status);
+                payload.put((byte) (change.task.done ? 1 : 0));
+                putString(payload, change.task.category);
+                payload.putShort((short) change.task.startMinute);
+                payload.putInt(change.task.duration);
+                putString(payload, change.task.description);
+                putString(payload, change.task.tags);
+                putString(payload, change.task.recurrence);
+                payload.putLong(change.task.uid.getMostSignificantBits());
+                payload.putLong(change.task.uid.getLeastSignificantBits());
+            }
+            case OP_SET_DONE -> {
+                payload.putInt(change.id);
+                payload.put((byte) (change.done ? 1 : 0));
+            }
+            case OP_SET_OCCURRENCE_DONE -> {
+                payload.putInt(change.id);
+                payload.putInt(change.epochDay);
+                payload.put((byte) (change.done ? 1 : 0));
+            }
+            case OP_SET_FIELD -> {
+                payload.putInt(change.id);
+                payload.put((byte) change.field.ordinal());
+                switch (change.field) {
+                    case TIME -> payload.putShort(((Integer) change.value).shortValue());
+                    case DURATION -> payload.putInt((Integer) change.value);
+                    default -> putString(payload, (String) change.value);
+                }
+            }
+            case OP_REMOVE_TASK -> payload.putInt(change.id);
+            default -> putString(payload, change.category);
+        }
+        payload.flip();
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+
+        int needed = 8 + payload.remaining();
+        if (buffer.remaining() < needed) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + needed));
+            buffer.flip();
+            grown.put(buffer);
+            buffer = grown;
+        }
+        buffer.putInt(payload.remaining());
+        buffer.putInt((int) crc.getValue());
+        buffer.put(payload);
+        return buffer;
+    }
+
+    private static int estimate(Change change) {
+        int size = 1 + 4 + 4 + 1 + 2 + 4 + 16;
+        if (change.task != null) {
+            size += utf8Length(change.task.name) + utf8Length(change.task.date)
+                    + utf8Length(change.task.priority) + utf8Length(change.task.status)
+                    + utf8Length(change.task.category) + utf8Length(change.task.description)
+                    + utf8Length(change.task.tags) + utf8Length(change.task.recurrence);
+        }
+        if (change.category != null) {
+            size += utf8Length(change.category);
+        }
+        if (change.value instanceof String) {
+            size += utf8Length((String) change.value);
+        }
+        return size;
+    }
+
+    private static int utf8Length(String s) {
+        return 4 + (s == null ? 0 : s.length() * 3);
+    }
+
+    private void compact() throws IOException {
+        Path tmp = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(tmp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(storedCategories.size());
+            for (String category : storedCategories) {
+                writeString(out, category);
+            }
+            out.writeInt(stored.size());
+            for (Map.Entry<Integer, StoredTask> entry : stored.entrySet()) {
+                StoredTask task = entry.getValue();
+                out.writeInt(entry.getKey());
+                writeString(out, task.name);
+                writeString(out, task.date);
+                writeString(out, task.priority);
+                writeString(out, task.status);
+                out.writeBoolean(task.done);
+                writeString(out, task.category);
+                out.writeShort(task.startMinute);
+                out.writeInt(task.duration);
+                writeString(out, task.description);
+                writeString(out, task.tags);
+                writeString(out, task.recurrence);
+                Set<Integer> doneDays = task.doneOccurrences();
+                out.writeInt(doneDays.size());
+                for (int day : doneDays) {
+                    out.writeInt(day);
+                }
+                out.writeLong(task.uid == null ? 0 : task.uid.getMostSignificantBits());
+                out.writeLong(task.uid == null ? 0 : task.uid.getLeastSignificantBits());
+            }
+            out.flush();
+            file.getChannel().force(true);
+        }
+        // A crash before the truncate leaves records the snapshot already holds;
+        // replaying them on the next open rewrites the same entries.
+        Files.move(tmp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        journal.truncate(0);
+        journal.position(0);
+        journal.force(true);
+        journalRecords = 0;
+        uidsAssigned = false;
+    }
+
+    private void readSnapshot() throws IOException {
+        try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int magic = in.getInt();
+            int version = in.getInt();
+            if (magic != SNAPSHOT_MAGIC || version < 1 || version > FORMAT_VERSION) {
+                throw new IOException("Unrecognised task snapshot " + snapshotFile);
+            }
+            int categoryCount = in.getInt();
+            for (int i = 0; i < categoryCount; i++) {
+                storedCategories.add(getString(in));
+            }
+            int taskCount = in.getInt();
+            for (int i = 0; i < taskCount; i++) {
+                int id = in.getInt();
+                StoredTask task = new StoredTask(getString(in), getShared(in), getShared(in), getShared(in),
+                        in.get() != 0, version >= 2 ? getShared(in) : null,
+                        version >= 3 ? in.getShort() : NO_TIME, version >= 3 ? in.getInt() : 0,
+                        version >= 4 ? getString(in) : null, version >= 4 ? getString(in) : null,
+                        version >= 5 ? getString(in) : null, null);
+                if (version >= 5) {
+                    for (int done = in.getInt(); done > 0; done--) {
+                        task.setOccurrenceDone(in.getInt(), true);
+                    }
+                }
+                if (version >= 6) {
+                    task.uid = new UUID(in.getLong(), in.getLong());
+                }
+                stored.put(id, task);
+            }
+        }
+    }
+
+    // Applies every intact record and returns the byte length of the intact prefix.
+    private long replayJournal() throws IOException {
+        try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.READ)) {
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            CRC32 crc = new CRC32();
+            long valid = 0;
+            while (in.remaining() >= 8) {
+                int length = in.getInt();
+                int checksum = in.getInt();
+                if (length <= 0 || length > in.remaining()) {
+                    break;
+                }
+                ByteBuffer payload = in.slice();
+                payload.limit(length);
+                crc.reset();
+                crc.update(payload.duplicate());
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                try {
+                    apply(decode(payload));
+                } catch (BufferUnderflowException | IllegalStateException e) {
+                    break;
+                }
+                in.position(in.position() + length);
+                valid = in.position();
+                journalRecords++;
+            }
+            return valid;
+        }
+    }
+
+    private static Change decode(ByteBuffer in) {
+        byte op = in.get();
+        switch (op) {
+            case OP_ADD_TASK -> {
+                int id = in.getInt();
+                // Older records end early: before the category, the due time, the description,
+                // the recurrence rule or the uid.
+                StoredTask task = new StoredTask(getString(in), getShared(in), getShared(in), getShared(in),
+                        in.get() != 0, in.hasRemaining() ? getShared(in) : null,
+                        in.hasRemaining() ? in.getShort() : NO_TIME, in.hasRemaining() ? in.getInt() : 0,
+                        in.hasRemaining() ? getString(in) : null, in.hasRemaining() ? getString(in) : null,
+                        in.hasRemaining() ? getString(in) : null,
+                        in.hasRemaining() ? new UUID(in.getLong(), in.getLong()) : null);
+                return new Change(op, id, task, null, false);
+            }
+            case OP_SET_DONE -> {
+                int id = in.getInt();
+                return new Change(op, id, null, null, in.get() != 0);
+            }
+            case OP_SET_OCCURRENCE_DONE -> {
+                int id = in.getInt();
+                int epochDay = in.getInt();
+                return new Change(op, id, null, null, in.get() != 0, epochDay);
+            }
+            case OP_SET_FIELD -> {
+                int id = in.getInt();
+                int ordinal = in.get();
+                if (ordinal < 0 || ordinal >= TaskField.values().length || ordinal == TaskField.DONE.ordinal()) {
+                    throw new IllegalStateException("Unknown task field " + ordinal);
+                }
+                TaskField field = TaskField.values()[ordinal];
+                Object value = switch (field) {
+                    case TIME -> (int) in.getShort();
+                    case DURATION -> in.getInt();
+                    default -> getString(in);
+                };
+                return Change.fieldSet(id, field, value);
+            }
+            case OP_REMOVE_TASK -> {
+                return new Change(op, in.getInt(), null, null, false);
+            }
+            case OP_ADD_CATEGORY, OP_REMOVE_CATEGORY -> {
+                return new Change(op, 0, null, getString(in), false);
+            }
+            default -> throw new IllegalStateException("Unknown journal op " + op);
+        }
+    }
+
+    private static int toMinute(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    private static LocalTime toTime(int startMinute) {
+        return startMinute == NO_TIME ? null : LocalTime.of(startMinute / 60, startMinute % 60);
+    }
+
+    // Strings are stored as [int byte length, -1 for null][UTF-8 bytes].
+    private static void putString(ByteBuffer out, String s) {
+        if (s == null) {
+            out.putInt(-1);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.putInt(bytes.length);
+        out.put(bytes);
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String getString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (in.hasArray()) {
+            String s = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+            in.position(in.position() + length);
+            return s;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // For dates, priorities, statuses and categories, which repeat from task to
+    // task: every task read back shares one String per distinct value.
+    private static String getShared(ByteBuffer in) {
+        String s = getString(in);
+        return s == null ? null : s.intern();
+    }
+}
@@ -0,0 +1,273 @@
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.DoubleConsumer;
+
+// Bulk import and export of tasks as CSV, JSON Lines or iCalendar. Files are parsed and
+// written on a background thread. Parsed tasks reach the planner in batches
+// through the UI executor, one addTasks call per batch, with at most two batches
+// in flight so memory stays bounded. Records that cannot be read are skipped
+// and counted rather than failing the import. Export takes the task list as it
+// stands when it starts and streams that snapshot to the file one chunk at a
+// time, so edits made meanwhile cannot shift rows between chunks.
+public class TaskTransfer {
+    public static final int BATCH_SIZE = 2_000;
+    private static final int BATCHES_IN_FLIGHT = 2;
+
+    // A running import or export. The result is the number of tasks transferred.
+    public static final class Job {
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private final CompletableFuture<Integer> result = new CompletableFuture<>();
+        private volatile int unsupportedRecurrences;
+        private volatile int skippedRecords;
+
+        public void cancel() { cancelled.set(true); }
+        public boolean isCancelled() { return cancelled.get(); }
+        public CompletableFuture<Integer> result() { return result; }
+
+        // Imported tasks whose repeat rule the planner cannot follow; they were
+        // imported as one-off tasks.
+        public int unsupportedRecurrences() { return unsupportedRecurrences; }
+
+        // Records left out of an import because they were malformed or had no name.
+        public int skippedRecords() { return skippedRecords; }
+    }
+
+    private final PlannerService planner;
+    private final Executor uiExecutor;
+
+    // uiExecutor runs planner mutations and list reads; pass Platform::runLater from the app.
+    public TaskTransfer(PlannerService planner, Executor uiExecutor) {
+        this.planner = planner;
+        this.uiExecutor = uiExecutor;
+    }
+
+    // progress is called on the UI executor with the fraction of the file consumed.
+    public Job importFile(Path file, DoubleConsumer progress) {
+        Job job = new Job();
+        start("task-import", job, () -> importTasks(file, job, progress));
+        return job;
+    }
+
+    public Job exportFile(Path file, DoubleConsumer progress) {
+        Job job = new Job();
+        start("task-export", job, () -> exportTasks(file, job, progress));
+        return job;
+    }
+
+    private interface Work {
+        int run() throws Exception;
+    }
+
+    private static void start(String name, Job job, Work work) {
+        Thread thread = new Thread(() -> {
+            try {
+                job.result.complete(work.run());
+            } catch (Exception e) {
+                job.result.completeExceptionally(e);
+            }
+        }, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private int importTasks(Path file, Job job, DoubleConsumer progress) throws IOException, InterruptedException {
+        long size = Math.max(1, Files.size(file));
+        TaskCodec.Format format = TaskCodec.Format.forFileName(file.getFileName().toString());
+        Semaphore inFlight = new Semaphore(BATCHES_IN_FLIGHT);
+        int imported = 0;
+        try (CountingInputStream counter = new CountingInputStream(Files.newInputStream(file));
+             BufferedReader reader = new BufferedReader(new InputStreamReader(counter, StandardCharsets.UTF_8))) {
+            TaskCodec.CsvReader csv = format == TaskCodec.Format.CSV ? new TaskCodec.CsvReader(reader) : null;
+            IcsCodec.Reader ics = format == TaskCodec.Format.ICS ? new IcsCodec.Reader(counter) : null;
+            List<Task> batch = new ArrayList<>(BATCH_SIZE);
+            while (!job.isCancelled()) {
+                Map<String, String> fields;
+                try {
+                    fields = csv != null ? csv.next() : ics != null ? ics.next() : nextJsonRecord(reader);
+                } catch (IllegalArgumentException e) {
+                    job.skippedRecords++; // the reader has moved past the bad record
+                    continue;
+                }
+                if (fields == null) {
+                    break;
+                }
+                Task task = TaskCodec.toTask(fields);
+                if (task == null) {
+                    job.skippedRecords++;
+                    continue;
+                }
+                String rule = fields.get("recurrence");
+                if (task.getRecurrence() == null && rule != null && !rule.isBlank()) {
+                    job.unsupportedRecurrences++;
+                }
+                batch.add(task);
+                if (batch.size() == BATCH_SIZE) {
+                    imported += handOff(batch, inFlight);
+                    double fraction = Math.min(1.0, counter.count / (double) size);
+                    uiExecutor.execute(() -> progress.accept(fraction));
+                    batch = new ArrayList<>(BATCH_SIZE);
+                }
+            }
+            if (!job.isCancelled() && !batch.isEmpty()) {
+                imported += handOff(batch, inFlight);
+            }
+        }
+        inFlight.acquire(BATCHES_IN_FLIGHT); // wait until every batch has been applied
+        uiExecutor.execute(() -> progress.accept(1.0));
+        return imported;
+    }
+
+    private static Map<String, String> nextJsonRecord(BufferedReader reader) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (!line.isBlank()) {
+                return TaskCodec.parseJsonObject(line);
+            }
+        }
+        return null;
+    }
+
+    private int handOff(List<Task> batch, Semaphore inFlight) throws InterruptedException {
+        inFlight.acquire();
+        Set<String> newCategories = new LinkedHashSet<>();
+        for (Task task : batch) {
+            if (task.getCategory() != null) {
+                newCategories.add(task.getCategory());
+            }
+        }
+        uiExecutor.execute(() -> {
+            try {
+                for (String category : newCategories) {
+                    planner.addCategory(category);
+                }
+                planner.addTasks(batch);
+            } finally {
+                inFlight.release();
+            }
+        });
+        return batch.size();
+    }
+
+    private int exportTasks(Path file, Job job, DoubleConsumer progress) throws IOException, InterruptedException, ExecutionException {
+        TaskCodec.Format format = TaskCodec.Format.forFileName(file.getFileName().toString());
+        int exported = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+             Writer out = Channels.newWriter(channel, StandardCharsets.UTF_8)) {
+            String stamp = IcsCodec.stamp();
+            if (format == TaskCodec.Format.CSV) {
+                out.write(TaskCodec.csvHeader());
+                out.write('\n');
+            } else if (format == TaskCodec.Format.ICS) {
+                StringBuilder header = new StringBuilder();
+                IcsCodec.appendHeader(header);
+                out.append(header);
+            }
+            List<Task> tasks = snapshot().get();
+            while (!job.isCancelled()) {
+                Chunk chunk = nextChunk(tasks, exported, format, stamp).get();
+                if (chunk.rows == 0) {
+                    break;
+                }
+                out.append(chunk.text);
+                exported += chunk.rows;
+                double fraction = exported / (double) tasks.size();
+                uiExecutor.execute(() -> progress.accept(fraction));
+            }
+            if (format == TaskCodec.Format.ICS) {
+                StringBuilder footer = new StringBuilder();
+                IcsCodec.appendFooter(footer);
+                out.append(footer);
+            }
+        }
+        return exported;
+    }
+
+    private static final class Chunk {
+        final CharSequence text;
+        final int rows;
+
+        Chunk(CharSequence text, int rows) {
+            this.text = text;
+            this.rows = rows;
+        }
+    }
+
+    // The tasks to export, copied by reference on the UI executor. Tasks removed
+    // later are still written; tasks added later are not.
+    private CompletableFuture<List<Task>> snapshot() {
+        CompletableFuture<List<Task>> tasks = new CompletableFuture<>();
+        uiExecutor.execute(() -> tasks.complete(new ArrayList<>(planner.tasks())));
+        return tasks;
+    }
+
+    // Formats the next slice of the snapshot on the UI executor, where the tasks' fields may safely be read.
+    private CompletableFuture<Chunk> nextChunk(List<Task> tasks, int from, TaskCodec.Format format, String stamp) {
+        CompletableFuture<Chunk> chunk = new CompletableFuture<>();
+        uiExecutor.execute(() -> {
+            try {
+                int to = Math.min(tasks.size(), from + BATCH_SIZE);
+                StringBuilder text = new StringBuilder();
+                for (int i = from; i < to; i++) {
+                    if (format == TaskCodec.Format.ICS) {
+                        IcsCodec.appendTodo(text, tasks.get(i), stamp);
+                    } else if (format == TaskCodec.Format.CSV) {
+                        TaskCodec.appendCsv(text, TaskCodec.fields(tasks.get(i)));
+                    } else {
+                        TaskCodec.appendJson(text, TaskCodec.fields(tasks.get(i)));
+                    }
+                }
+                chunk.complete(new Chunk(text, Math.max(0, to - from)));
+            } catch (RuntimeException e) {
+                chunk.completeExceptionally(e);
+            }
+        });
+        return chunk;
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        volatile long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+import java.util.function.Consumer;
+
+// A hierarchical timing wheel (Varghese and Lauck; the layout of the classic
+// Linux timer wheel). Five levels of 64 slots each. Level 0 covers the next 64
+// ticks one tick per slot, and each higher level covers 64 times the span of
+// the one below. Timers too far out for the top level wait in an overflow list.
+// Scheduling, rescheduling and cancelling are O(1): a timer is a node in a
+// doubly linked slot list. When a lower level wraps, the matching slot of the
+// level above is cascaded down. Time only moves when advanceTo is called, so
+// the wheel runs the same against a real or a virtual clock.
+//
+// Not thread-safe; ReminderScheduler guards it with its lock.
+public final class TimingWheel<T> {
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 5;
+    private static final int OVERFLOW = LEVELS;
+
+    // A scheduled item. Keep it to reschedule or cancel the item later.
+    public static final class Timer<T> {
+        private final T item;
+        private long deadlineTick;
+        private int level = -1;
+        private int slot;
+        private Timer<T> prev;
+        private Timer<T> next;
+
+        private Timer(T item) {
+            this.item = item;
+        }
+
+        public T item() { return item; }
+
+        public boolean isScheduled() { return level >= 0; }
+    }
+
+    private final long tickMillis;
+    // heads[level][slot]; the overflow list is heads[OVERFLOW][0].
+    private final Timer<T>[][] heads;
+    private final int[] counts = new int[LEVELS + 1];
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TimingWheel(long tickMillis, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.currentTick = Math.floorDiv(startMillis, tickMillis);
+        this.heads = new Timer[LEVELS + 1][];
+        for (int level = 0; level < LEVELS; level++) {
+            heads[level] = new Timer[SLOTS];
+        }
+        heads[OVERFLOW] = new Timer[1];
+    }
+
+    public int size() { return size; }
+
+    // Schedules item to expire at deadlineMillis. Returns null, and schedules
+    // nothing, when that is not after the current tick.
+    public Timer<T> schedule(T item, long deadlineMillis) {
+        Timer<T> timer = new Timer<>(item);
+        return reschedule(timer, deadlineMillis) ? timer : null;
+    }
+
+    // Moves a timer, scheduled or not, to a new deadline. Returns false, leaving
+    // it unscheduled, when the deadline is not after the current tick.
+    public boolean reschedule(Timer<T> timer, long deadlineMillis) {
+        cancel(timer);
+        long deadlineTick = Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis);
+        if (deadlineTick <= currentTick) {
+            return false;
+        }
+        timer.deadlineTick = deadlineTick;
+        insert(timer);
+        size++;
+        return true;
+    }
+
+    public void cancel(Timer<T> timer) {
+        if (timer.isScheduled()) {
+            unlink(timer);
+            size--;
+        }
+    }
+
+    // Moves time forward to nowMillis, handing every timer whose deadline has
+    // passed to expired, in deadline order.
+    public void advanceTo(long nowMillis, Consumer<? super T> expired) {
+        long targetTick = Math.floorDiv(nowMillis, tickMillis);
+        while (currentTick < targetTick) {
+            if (size == 0) {
+                currentTick = targetTick;
+                return;
+            }
+            if (counts[0] == 0) {
+                // Nothing can fire before the next cascade that moves a timer, so jump to the tick before it.
+                long skipTo = Math.min(targetTick, nextWakeTick() - 1);
+                if (skipTo > currentTick) {
+                    currentTick = skipTo;
+                    continue;
+                }
+            }
+            currentTick++;
+            cascade();
+            expire((int) (currentTick & MASK), expired);
+        }
+    }
+
+    // The next time at which advanceTo could fire or cascade something, or
+    // Long.MAX_VALUE when the wheel is empty. Sleeping until then is safe.
+    public long nextWakeMillis() {
+        long wakeTick = nextWakeTick();
+        return wakeTick > Long.MAX_VALUE / tickMillis ? Long.MAX_VALUE : wakeTick * tickMillis;
+    }
+
+    // ---- internals ----
+
+    private long nextWakeTick() {
+        if (size == 0) {
+            return Long.MAX_VALUE;
+        }
+        long wakeTick = Long.MAX_VALUE;
+        for (int level = 0; level < LEVELS; level++) {
+            if (counts[level] == 0) {
+                continue;
+            }
+            int shift = BITS * level;
+            long base = currentTick >>> shift;
+            for (int k = 1; k <= SLOTS; k++) {
+                if (heads[level][(int) ((base + k) & MASK)] != null) {
+                    wakeTick = Math.min(wakeTick, (base + k) << shift);
+                    break;
+                }
+            }
+        }
+        if (counts[OVERFLOW] > 0) {
+            int shift = BITS * LEVELS;
+            wakeTick = Math.min(wakeTick, ((currentTick >>> shift) + 1) << shift);
+        }
+        return wakeTick;
+    }
+
+    private void insert(Timer<T> timer) {
+        long delta = timer.deadlineTick - currentTick;
+        int level = 0;
+        while (level < LEVELS && delta >= 1L << (BITS * (level + 1))) {
+            level++;
+        }
+        int slot = level == OVERFLOW ? 0 : (int) ((Math.max(timer.deadlineTick, currentTick) >>> (BITS * level)) & MASK);
+        link(timer, level, slot);
+    }
+
+    // On a level-0 wrap, pulls the current slot of level 1 down; on a level-1
+    // wrap, level 2's; and so on. On a top-level wrap, re-sorts the overflow list.
+    private void cascade() {
+        for (int level = 1; level <= LEVELS; level++) {
+            if ((currentTick & ((1L << (BITS * level)) - 1)) != 0) {
+                return;
+            }
+            int slot = level == OVERFLOW ? 0 : (int) ((currentTick >>> (BITS * level)) & MASK);
+            Timer<T> timer = heads[level][slot];
+            heads[level][slot] = null;
+            while (timer != null) {
+                Timer<T> next = timer.next;
+                counts[level]--;
+                timer.level = -1;
+                timer.prev = timer.next = null;
+                insert(timer); // a timer due this very tick lands in the level-0 slot about to expire
+                timer = next;
+            }
+        }
+    }
+
+    private void expire(int slot, Consumer<? super T> expired) {
+        Timer<T> timer = heads[0][slot];
+        heads[0][slot] = null;
+        while (timer != null) {
+            Timer<T> next = timer.next;
+            counts[0]--;
+            size--;
+            timer.level = -1;
+            timer.prev = timer.next = null;
+            expired.accept(timer.item);
+            timer = next;
+        }
+    }
+
+    private void link(Timer<T> timer, int level, int slot) {
+        Timer<T> head = heads[level][slot];
+        timer.level = level;
+        timer.slot = slot;
+        timer.prev = null;
+        timer.next = head;
+        if (head != null) {
+            head.prev = timer;
+        }
+        heads[level][slot] = timer;
+        counts[level]++;
+    }
+
+    private void unlink(Timer<T> timer) {
+        if (timer.prev != null) {
+            timer.prev.next = timer.next;
+        } else {
+            heads[timer.level][timer.slot] = timer.next;
+        }
+        if (timer.next != null) {
+            timer.next.prev = timer.prev;
+        }
+        counts[timer.level]--;
+        timer.level = -1;
+        timer.prev = timer.next = null;
+    }
+}
@@ -0,0 +1,184 @@
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.SimpleBooleanProperty;
+import javafx.collections.ListChangeListener;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+// Undo/redo over the planner's own change fan-out. Each user action (a list
+// change, a field edit, an occurrence tick, a category change) becomes one group
+// of TaskChange records. Undo replays a group's inverses through the planner's
+// mutators, handing each run of task adds or removes over as one bulk call, so
+// undoing an import is a single pass over the list. Nothing is copied, so undo
+// and redo cost one step per record in the group. The history keeps at most capacity records and drops the oldest groups
+// first. A single group larger than that is still kept.
+public class UndoHistory implements TaskListener {
+    public static final int DEFAULT_CAPACITY = 10_000;
+
+    private final PlannerService planner;
+    private final int capacity;
+    private final Deque<TaskChange[]> undoGroups = new ArrayDeque<>();
+    private final Deque<TaskChange[]> redoGroups = new ArrayDeque<>();
+    private final List<TaskChange> pending = new ArrayList<>();
+    private int undoRecords;
+    private boolean replaying;
+
+    private final SimpleBooleanProperty canUndo = new SimpleBooleanProperty(this, "canUndo", false);
+    private final SimpleBooleanProperty canRedo = new SimpleBooleanProperty(this, "canRedo", false);
+
+    public UndoHistory(PlannerService planner, int capacity) {
+        this.planner = planner;
+        this.capacity = capacity;
+        planner.addListener(this);
+        planner.categories().addListener((ListChangeListener<String>) change -> {
+            while (change.next()) {
+                if (change.wasPermutated()) {
+                    continue;
+                }
+                for (String removed : change.getRemoved()) {
+                    record(TaskChange.categoryRemoved(removed));
+                }
+                for (String added : change.getAddedSubList()) {
+                    record(TaskChange.categoryAdded(added));
+                }
+            }
+            changeComplete();
+        });
+    }
+
+    public ReadOnlyBooleanProperty canUndoProperty() { return canUndo; }
+    public ReadOnlyBooleanProperty canRedoProperty() { return canRedo; }
+
+    public boolean undo() {
+        changeComplete();
+        TaskChange[] group = undoGroups.pollFirst();
+        if (group == null) {
+            return false;
+        }
+        undoRecords -= group.length;
+        List<TaskChange> inverses = new ArrayList<>(group.length);
+        for (int i = group.length - 1; i >= 0; i--) {
+            inverses.add(group[i].inverse());
+        }
+        replay(inverses);
+        redoGroups.addFirst(group);
+        updateState();
+        return true;
+    }
+
+    public boolean redo() {
+        changeComplete();
+        TaskChange[] group = redoGroups.pollFirst();
+        if (group == null) {
+            return false;
+        }
+        replay(Arrays.asList(group));
+        push(group);
+        updateState();
+        return true;
+    }
+
+    // Runs changes that are not this user's edits, such as ones replicated from
+    // another workstation, without recording them.
+    public void runUnrecorded(Runnable changes) {
+        changeComplete();
+        boolean wasReplaying = replaying;
+        replaying = true;
+        try {
+            changes.run();
+        } finally {
+            replaying = wasReplaying;
+        }
+    }
+
+    @Override
+    public void taskAdded(Task task) {
+        record(TaskChange.taskAdded(task));
+    }
+
+    @Override
+    public void taskRemoved(Task task) {
+        record(TaskChange.taskRemoved(task));
+    }
+
+    @Override
+    public void taskChanged(Task task, TaskField field, Object oldValue, Object newValue) {
+        record(TaskChange.fieldSet(task, field, oldValue, newValue));
+    }
+
+    @Override
+    public void occurrenceChanged(Task series, LocalDate date, boolean done) {
+        record(TaskChange.occurrenceDone(series, date, done));
+    }
+
+    // Closes the group collected since the last call; a new edit clears the redo stack.
+    @Override
+    public void changeComplete() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        push(pending.toArray(new TaskChange[0]));
+        pending.clear();
+        redoGroups.clear();
+        updateState();
+    }
+
+    private void replay(List<TaskChange> changes) {
+        replaying = true;
+        try {
+            List<Task> run = new ArrayList<>();
+            TaskChange.Kind runKind = null;
+            for (TaskChange change : changes) {
+                TaskChange.Kind kind = change.getKind();
+                if (kind != runKind) {
+                    flush(runKind, run);
+                    runKind = null;
+                }
+                if (kind == TaskChange.Kind.ADD_TASK || kind == TaskChange.Kind.REMOVE_TASK) {
+                    runKind = kind;
+                    run.add(change.getTask());
+                } else {
+                    change.applyTo(planner);
+                }
+            }
+            flush(runKind, run);
+        } finally {
+            replaying = false;
+        }
+    }
+
+    private void flush(TaskChange.Kind kind, List<Task> run) {
+        if (run.isEmpty()) {
+            return;
+        }
+        if (kind == TaskChange.Kind.ADD_TASK) {
+            planner.addTasks(run);
+        } else {
+            planner.removeTasks(run);
+        }
+        run.clear();
+    }
+
+    private void record(TaskChange change) {
+        if (!replaying) {
+            pending.add(change);
+        }
+    }
+
+    private void push(TaskChange[] group) {
+        undoGroups.addFirst(group);
+        undoRecords += group.length;
+        while (undoRecords > capacity && undoGroups.size() > 1) {
+            undoRecords -= undoGroups.pollLast().length;
+        }
+    }
+
+    private void updateState() {
+        canUndo.set(!undoGroups.isEmpty());
+        canRedo.set(!redoGroups.isEmpty());
+    }
+}
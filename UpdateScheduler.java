@@ -0,0 +1,76 @@
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.function.BooleanSupplier;
+
+// Coalesces view updates. Changes only mark views dirty; the first mark schedules
+// a single flush on the UI executor, which redraws each dirty view once however
+// many changes arrived in between. A view that is not showing stays dirty and is
+// redrawn by the first flush after it becomes visible again.
+public class UpdateScheduler {
+    public enum View { TABLE, CHIPS, CATEGORY_FILTER, CALENDAR, AGENDA, REPORTS }
+
+    private static final class Registration {
+        final Runnable update;
+        final BooleanSupplier visible;
+
+        Registration(Runnable update, BooleanSupplier visible) {
+            this.update = update;
+            this.visible = visible;
+        }
+    }
+
+    private final Executor uiExecutor;
+    private final Map<View, Registration> views = new EnumMap<>(View.class);
+    private final Set<View> dirty = EnumSet.noneOf(View.class);
+    private boolean flushScheduled;
+
+    // uiExecutor runs the flush; pass Platform::runLater from the app.
+    public UpdateScheduler(Executor uiExecutor) {
+        this.uiExecutor = uiExecutor;
+    }
+
+    public void register(View view, Runnable update) {
+        register(view, update, () -> true);
+    }
+
+    public void register(View view, Runnable update, BooleanSupplier visible) {
+        views.put(view, new Registration(update, visible));
+    }
+
+    public void markDirty(View view) {
+        dirty.add(view);
+        requestFlush();
+    }
+
+    public void markDirty(View first, View... rest) {
+        dirty.add(first);
+        for (View view : rest) {
+            dirty.add(view);
+        }
+        requestFlush();
+    }
+
+    // Call when a view may have become visible, so that pending work for it runs.
+    public void requestFlush() {
+        if (!flushScheduled && !dirty.isEmpty()) {
+            flushScheduled = true;
+            uiExecutor.execute(this::flush);
+        }
+    }
+
+    private void flush() {
+        flushScheduled = false;
+        for (View view : EnumSet.copyOf(dirty)) {
+            Registration registration = views.get(view);
+            if (registration == null || registration.visible.getAsBoolean()) {
+                dirty.remove(view);
+                if (registration != null) {
+                    registration.update.run();
+                }
+            }
+        }
+    }
+}
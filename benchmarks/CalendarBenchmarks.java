@@ -0,0 +1,94 @@
+package dailyplanner;
+
+import javafx.collections.ObservableList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// The per-render lookups behind the calendar tab. Each "scan" benchmark repeats
+// the original full-list stream, and each "indexed" one makes the same query
+// through PlannerService the way the calendar does now. Only javafx.base is used, so
+// this runs headless.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CalendarBenchmarks {
+    @Param({"1000", "100000", "1000000"})
+    public int taskCount;
+
+    private ObservableList<Task> allTasks;
+    private PlannerService planner;
+    private final YearMonth month = YearMonth.from(SyntheticTasks.BASE_DATE);
+    private final LocalDate day = SyntheticTasks.BASE_DATE;
+
+    @Setup
+    public void setUp() {
+        planner = new PlannerService(List.of(SyntheticTasks.CATEGORIES));
+        planner.addTasks(SyntheticTasks.generate(taskCount, 42));
+        allTasks = planner.tasks();
+    }
+
+    @Benchmark
+    public void monthGridScan(Blackhole bh) {
+        for (int d = 1; d <= month.lengthOfMonth(); d++) {
+            LocalDate thisDate = month.atDay(d);
+            bh.consume(allTasks.stream().anyMatch(t -> t.getDate().equals(thisDate.toString())));
+        }
+    }
+
+    @Benchmark
+    public int monthGridIndexed() {
+        return planner.monthOccupancy(month);
+    }
+
+    @Benchmark
+    public String agendaScan() {
+        StringBuilder sb = new StringBuilder("Tasks on " + day + ":\n");
+        allTasks.stream()
+                .filter(t -> t.getDate().equals(day.toString()))
+                .forEach(t -> sb.append("- ").append(t.getName()).append("\n"));
+        return sb.toString();
+    }
+
+    @Benchmark
+    public String agendaIndexed() {
+        return planner.agendaText(day);
+    }
+
+    @Benchmark
+    public void dayViewScan(Blackhole bh) {
+        for (int hour = 0; hour < 24; hour++) {
+            int finalHour = hour;
+            allTasks.stream()
+                    .filter(t -> t.getDate().equals(day.toString()))
+                    .filter(t -> t.getName().contains(String.format("%02d:", finalHour)))
+                    .forEach(bh::consume);
+        }
+    }
+
+    @Benchmark
+    public void dayViewIndexed(Blackhole bh) {
+        for (int hour = 0; hour < 24; hour++) {
+            for (Task t : planner.tasksOverlapping(day, hour * 60, (hour + 1) * 60)) {
+                bh.consume(t);
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package dailyplanner;
+
+import javafx.collections.ObservableList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Selecting a category on the dashboard: a predicate over every task versus the
+// CategoryIndex list the table is now pointed at, plus reading a chip's counters.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CategoryFilterBenchmarks {
+    @Param({"1000", "100000", "1000000"})
+    public int taskCount;
+
+    private ObservableList<Task> allTasks;
+    private PlannerService planner;
+
+    @Setup
+    public void setUp() {
+        planner = new PlannerService(List.of(SyntheticTasks.CATEGORIES));
+        planner.addTasks(SyntheticTasks.generate(taskCount, 11));
+        allTasks = planner.tasks();
+    }
+
+    @Benchmark
+    public void categoryFilterScan(Blackhole bh) {
+        for (Task t : allTasks) {
+            if ("Work".equals(t.getCategory())) {
+                bh.consume(t);
+            }
+        }
+    }
+
+    @Benchmark
+    public void categoryFilterIndexed(Blackhole bh) {
+        for (Task t : planner.categoryView("Work")) {
+            bh.consume(t);
+        }
+    }
+
+    @Benchmark
+    public int categoryCountsScan() {
+        int open = 0;
+        for (Task t : allTasks) {
+            if ("Work".equals(t.getCategory()) && !t.isDone()) {
+                open++;
+            }
+        }
+        return open;
+    }
+
+    @Benchmark
+    public int categoryCountsIndexed() {
+        return planner.categoryCounts("Work").openCount().get();
+    }
+}
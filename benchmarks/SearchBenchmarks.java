@@ -0,0 +1,62 @@
+package dailyplanner;
+
+import javafx.collections.ObservableList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+// Typing into the dashboard search box: a substring scan of every task's text
+// versus SearchIndex prefix lookups, for a short prefix and a two-word query.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmarks {
+    @Param({"1000", "100000", "500000"})
+    public int taskCount;
+
+    private ObservableList<Task> allTasks;
+    private PlannerService planner;
+
+    @Setup
+    public void setUp() {
+        planner = new PlannerService(List.of(SyntheticTasks.CATEGORIES));
+        planner.addTasks(SyntheticTasks.generate(taskCount, 13));
+        allTasks = planner.tasks();
+    }
+
+    @Benchmark
+    public void searchScan(Blackhole bh) {
+        for (Task t : allTasks) {
+            String text = (t.getName() + " " + t.getDescription() + " " + t.getTags()).toLowerCase(Locale.ROOT);
+            if (text.contains("invoice") && text.contains("budget")) {
+                bh.consume(t);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<Task> searchIndexedPrefix() {
+        return planner.search("inv", null, 1_000);
+    }
+
+    @Benchmark
+    public List<Task> searchIndexedTwoWords() {
+        return planner.search("invoice bud", null, 1_000);
+    }
+}
@@ -0,0 +1,66 @@
+package dailyplanner;
+
+import javafx.collections.ObservableList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Opening a smart list: filtering and sorting the whole task list versus
+// cutting the window out of DueIndex, for Overdue (large) and Due Today (small).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SmartListBenchmarks {
+    @Param({"1000", "100000", "500000"})
+    public int taskCount;
+
+    private ObservableList<Task> allTasks;
+    private PlannerService planner;
+    private final LocalDate today = SyntheticTasks.BASE_DATE;
+
+    @Setup
+    public void setUp() {
+        planner = new PlannerService(List.of(SyntheticTasks.CATEGORIES));
+        planner.addTasks(SyntheticTasks.generate(taskCount, 17));
+        allTasks = planner.tasks();
+    }
+
+    @Benchmark
+    public List<Task> todayScanAndSort() {
+        String day = today.toString();
+        List<Task> result = new ArrayList<>();
+        for (Task t : allTasks) {
+            if (!t.isDone() && day.equals(t.getDate())) {
+                result.add(t);
+            }
+        }
+        result.sort(DueIndex.ORDER);
+        return result;
+    }
+
+    @Benchmark
+    public List<Task> todayIndexed() {
+        return planner.smartList(DueIndex.SmartList.TODAY, today, null, 1_000);
+    }
+
+    @Benchmark
+    public List<Task> overdueIndexed() {
+        return planner.smartList(DueIndex.SmartList.OVERDUE, today, null, 1_000);
+    }
+}
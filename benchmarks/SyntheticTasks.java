@@ -0,0 +1,48 @@
+package dailyplanner;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Deterministic task sets for the benchmarks: dates spread over two years around
+// BASE_DATE, a due time that is also written into the name as "HH:MM" (for the
+// old string-matching day view), a few words from WORDS in the name, description
+// and tags, and the app's default priorities and categories.
+final class SyntheticTasks {
+    static final LocalDate BASE_DATE = LocalDate.of(2026, 6, 15);
+    static final String[] PRIORITIES = {"High", "Medium", "Low"};
+    static final String[] CATEGORIES = {"Work", "Personal", "Errands"};
+    static final String[] WORDS = {
+            "call", "email", "review", "report", "invoice", "dentist", "groceries", "meeting",
+            "budget", "plan", "draft", "update", "gym", "laundry", "taxes", "birthday",
+            "flight", "hotel", "deploy", "release", "design", "notes", "garden", "library"};
+
+    private SyntheticTasks() {
+    }
+
+    static List<Task> generate(int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Task> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LocalDate date = BASE_DATE.plusDays(random.nextInt(-365, 365));
+            LocalTime time = LocalTime.of(random.nextInt(24), random.nextInt(60));
+            String name = String.format("%s %s %s task %d", time, word(random), word(random), i);
+            Task task = new Task(name, date.toString(),
+                    PRIORITIES[random.nextInt(PRIORITIES.length)], "Pending",
+                    CATEGORIES[random.nextInt(CATEGORIES.length)], time, 15 * random.nextInt(9));
+            task.setDescription(word(random) + " before " + word(random));
+            task.setTags(word(random) + ", " + word(random));
+            if (random.nextInt(4) == 0) {
+                task.setDone(true);
+            }
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    private static String word(SplittableRandom random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+}
@@ -0,0 +1,60 @@
+package dailyplanner;
+
+import javafx.collections.ObservableList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Bulk adds through PlannerService, with its date and category indexes attached.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaskListBenchmarks {
+    @Param({"1000", "100000", "1000000"})
+    public int taskCount;
+
+    private List<Task> batch;
+    private PlannerService planner;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        batch = SyntheticTasks.generate(taskCount, 7);
+    }
+
+    // A fresh, empty planner for every call, so each add starts from nothing and
+    // building it stays out of the measurement. Adding the batch to the new
+    // planner re-attaches the tasks to it; the old planner is simply dropped.
+    @Setup(Level.Invocation)
+    public void newPlanner() {
+        planner = new PlannerService(List.of(SyntheticTasks.CATEGORIES));
+    }
+
+    @Benchmark
+    public ObservableList<Task> bulkAddAll() {
+        planner.addTasks(batch);
+        return planner.tasks();
+    }
+
+    @Benchmark
+    public ObservableList<Task> bulkAddOneByOne() {
+        for (Task task : batch) {
+            planner.addTask(task);
+        }
+        return planner.tasks();
+    }
+}
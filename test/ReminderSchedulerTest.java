@@ -0,0 +1,178 @@
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// The scheduler driven by poll() against a virtual clock, with the UI executor
+// running inline. With one-second ticks a reminder minutes away sits on level 0
+// or 1, hours away on level 2, and decades away in the overflow list.
+class ReminderSchedulerTest {
+    private static final LocalDate TODAY = LocalDate.of(2026, 6, 15);
+    private static final LocalDateTime START = TODAY.atTime(8, 0);
+
+    // A clock that only moves when told to.
+    private static final class VirtualClock extends Clock {
+        private Instant now;
+
+        VirtualClock(LocalDateTime start) {
+            now = start.toInstant(ZoneOffset.UTC);
+        }
+
+        void set(LocalDateTime time) {
+            now = time.toInstant(ZoneOffset.UTC);
+        }
+
+        void advance(Duration by) {
+            now = now.plus(by);
+        }
+
+        @Override
+        public ZoneId getZone() { return ZoneOffset.UTC; }
+
+        @Override
+        public Clock withZone(ZoneId zone) { throw new UnsupportedOperationException(); }
+
+        @Override
+        public Instant instant() { return now; }
+    }
+
+    private final VirtualClock clock = new VirtualClock(START);
+    private final PlannerService planner = new PlannerService(List.of("Work"));
+    private final List<List<Task>> alerts = new ArrayList<>();
+    private final ReminderScheduler reminders = new ReminderScheduler(planner, Runnable::run, clock, alerts::add);
+
+    @Test
+    void firesAtTheDueTimeOnEveryLevel() {
+        Task soon = timed("soon", TODAY, LocalTime.of(8, 0, 30));   // level 0
+        Task later = timed("later", TODAY, LocalTime.of(8, 50));    // level 1
+        Task tonight = timed("tonight", TODAY, LocalTime.of(20, 0)); // level 2, cascades down
+        Task decades = timed("decades", TODAY.plusYears(40), LocalTime.of(9, 0)); // overflow
+        assertEquals(4, reminders.pending());
+
+        expectAt(START.plusSeconds(30), soon);
+        expectAt(TODAY.atTime(8, 50), later);
+        expectAt(TODAY.atTime(20, 0), tonight);
+        expectAt(TODAY.plusYears(40).atTime(9, 0), decades);
+        assertEquals(0, reminders.pending());
+    }
+
+    @Test
+    void undatedAndAllDayTasks() {
+        planner.addTask(new Task("someday", null, "Low", "Pending"));
+        Task tomorrow = new Task("tomorrow", TODAY.plusDays(1).toString(), "Low", "Pending");
+        planner.addTask(tomorrow);
+        assertEquals(1, reminders.pending());
+        expectAt(TODAY.plusDays(1).atTime(ReminderScheduler.ALL_DAY_REMINDER), tomorrow);
+    }
+
+    @Test
+    void tasksDueTogetherArriveAsOneBatch() {
+        Task a = timed("a", TODAY, LocalTime.of(12, 0));
+        Task b = timed("b", TODAY, LocalTime.of(12, 0));
+        clock.set(TODAY.atTime(13, 0));
+        reminders.poll();
+        assertEquals(1, alerts.size());
+        assertEquals(List.of(a, b), sorted(alerts.get(0)));
+    }
+
+    @Test
+    void editsRescheduleTheReminder() {
+        Task task = timed("moved", TODAY, LocalTime.of(10, 0));
+        clock.set(TODAY.atTime(9, 0));
+        reminders.poll();
+        task.setTime(LocalTime.of(10, 30));
+        expectNothingUntil(TODAY.atTime(10, 29, 59));
+        expectAt(TODAY.atTime(10, 30), task);
+
+        Task pushed = timed("pushed", TODAY, LocalTime.of(11, 0));
+        pushed.setDate(TODAY.plusDays(3).toString()); // from level 1 up to level 3
+        expectNothingUntil(TODAY.plusDays(3).atTime(10, 59, 59));
+        expectAt(TODAY.plusDays(3).atTime(11, 0), pushed);
+
+        Task pulled = timed("pulled", TODAY.plusYears(50), LocalTime.of(11, 0));
+        pulled.setDate(TODAY.plusDays(4).toString()); // out of overflow
+        expectAt(TODAY.plusDays(4).atTime(11, 0), pulled);
+    }
+
+    @Test
+    void finishingOrRemovingATaskCancelsIt() {
+        Task done = timed("done", TODAY, LocalTime.of(9, 0));
+        Task removed = timed("removed", TODAY, LocalTime.of(9, 0));
+        Task far = timed("far", TODAY.plusYears(40), LocalTime.of(9, 0));
+        done.setDone(true);
+        planner.removeTask(removed);
+        far.setDone(true);
+        assertEquals(0, reminders.pending());
+        expectNothingUntil(TODAY.atTime(12, 0));
+
+        done.setDone(false); // reopened, but its time has passed
+        assertEquals(0, reminders.pending());
+        far.setDone(false);
+        assertEquals(1, reminders.pending());
+        expectAt(TODAY.plusYears(40).atTime(9, 0), far);
+    }
+
+    @Test
+    void recurringTasksMoveOnToTheNextOpenOccurrence() {
+        Task daily = new Task("standup", TODAY.toString(), "Low", "Pending", "Work", LocalTime.of(9, 0), 15);
+        daily.setRecurrence(new RecurrenceRule(RecurrenceRule.Frequency.DAILY, 1, null, null, 0));
+        planner.addTask(daily);
+        expectAt(TODAY.atTime(9, 0), daily);
+        assertEquals(1, reminders.pending());
+
+        planner.setOccurrenceDone(daily, TODAY.plusDays(1), true);
+        planner.setOccurrenceDone(daily, TODAY.plusDays(2), true);
+        expectNothingUntil(TODAY.plusDays(3).atTime(8, 59, 59));
+        expectAt(TODAY.plusDays(3).atTime(9, 0), daily);
+    }
+
+    @Test
+    void aSeriesThatHasEndedHasNoReminder() {
+        Task monthly = new Task("rent", TODAY.minusMonths(3).toString(), "High", "Pending", "Work", LocalTime.of(9, 0), 0);
+        monthly.setRecurrence(new RecurrenceRule(RecurrenceRule.Frequency.MONTHLY, 1, null, null, 3));
+        planner.addTask(monthly);
+        assertEquals(0, reminders.pending());
+
+        Task weekly = new Task("review", TODAY.minusMonths(3).toString(), "High", "Pending", "Work", LocalTime.of(9, 0), 0);
+        weekly.setRecurrence(new RecurrenceRule(RecurrenceRule.Frequency.WEEKLY, 2, null, TODAY.plusDays(20), 0));
+        planner.addTask(weekly);
+        assertEquals(1, reminders.pending());
+    }
+
+    private Task timed(String name, LocalDate date, LocalTime time) {
+        Task task = new Task(name, date.toString(), "Medium", "Pending", "Work", time, 30);
+        planner.addTask(task);
+        return task;
+    }
+
+    private void expectNothingUntil(LocalDateTime time) {
+        clock.set(time);
+        reminders.poll();
+        assertEquals(List.of(), alerts, "nothing due by " + time);
+    }
+
+    // Nothing fires a second before time, and exactly task fires at it.
+    private void expectAt(LocalDateTime time, Task task) {
+        expectNothingUntil(time.minusSeconds(1));
+        clock.set(time);
+        reminders.poll();
+        assertEquals(List.of(List.of(task)), alerts, task.getName() + " at " + time);
+        alerts.clear();
+    }
+
+    private static List<Task> sorted(List<Task> tasks) {
+        List<Task> copy = new ArrayList<>(tasks);
+        copy.sort((x, y) -> x.getName().compareTo(y.getName()));
+        return copy;
+    }
+}
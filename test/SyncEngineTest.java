@@ -0,0 +1,298 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Two or more engines sharing an InMemorySyncTransport, each with its own
+// planner, state file and wall clock. The test thread plays both the sync
+// thread (syncOnce) and the UI thread (an inline executor).
+class SyncEngineTest {
+    @TempDir
+    Path dir;
+
+    private final InMemorySyncTransport server = new InMemorySyncTransport();
+
+    // One workstation.
+    private final class Node {
+        final PlannerService planner = new PlannerService(List.of("Work"));
+        final AtomicLong wall = new AtomicLong(1_000);
+        final Path state;
+        SyncEngine engine;
+
+        Node(String name) {
+            state = dir.resolve(name + ".state");
+        }
+
+        Node open(SyncTransport transport) throws IOException {
+            engine = new SyncEngine(planner, null, transport, Runnable::run, state, 60_000, wall::get);
+            return this;
+        }
+
+        Node open() throws IOException {
+            return open(server);
+        }
+
+        void sync() throws IOException {
+            engine.syncOnce();
+        }
+
+        // Drops the engine without closing it, as a crash would.
+        void crash() {
+            planner.removeListener(engine);
+            engine = null;
+        }
+
+        Task task(String name) {
+            for (Task task : planner.tasks()) {
+                if (task.getName().equals(name)) {
+                    return task;
+                }
+            }
+            throw new AssertionError("No task " + name + " in " + planner.tasks().size() + " tasks");
+        }
+    }
+
+    // A transport whose next publishes fail, as if the server were unreachable.
+    private static final class FlakyTransport implements SyncTransport {
+        final SyncTransport target;
+        int failPublishes;
+        final List<Integer> fetched = new ArrayList<>();
+
+        FlakyTransport(SyncTransport target) {
+            this.target = target;
+        }
+
+        @Override
+        public void publish(long node, long seq, byte[] data) throws IOException {
+            if (failPublishes > 0) {
+                failPublishes--;
+                throw new IOException("server unreachable");
+            }
+            target.publish(node, seq, data);
+        }
+
+        @Override
+        public List<Batch> fetch(long self, Map<Long, Long> cursors) throws IOException {
+            List<Batch> batches = target.fetch(self, cursors);
+            fetched.add(batches.size());
+            return batches;
+        }
+    }
+
+    @Test
+    void replicatesAddsEditsAndRemoves() throws IOException {
+        Node a = new Node("a");
+        a.planner.addTask(new Task("Report", "2026-06-15", "High", "Pending", "Work"));
+        a.open();
+        Node b = new Node("b").open();
+        syncAll(a, b);
+        Task copy = b.task("Report");
+        assertEquals(a.task("Report").getUid(), copy.getUid());
+        assertEquals("High", copy.getPriority());
+
+        a.task("Report").setName("Quarterly report");
+        b.planner.addTask(new Task("Slides", "2026-06-16", "Low", "Pending", "Work"));
+        syncAll(a, b);
+        assertEquals("Quarterly report", copy.getName());
+        assertEquals(a.task("Slides").getUid(), b.task("Slides").getUid());
+
+        b.planner.removeTask(copy);
+        syncAll(a, b);
+        assertEquals(1, a.planner.tasks().size());
+        assertEquals(1, b.planner.tasks().size());
+    }
+
+    @Test
+    void concurrentDoneEditsSettleOnTheLaterStamp() throws IOException {
+        Node a = new Node("a");
+        a.planner.addTask(new Task("Ship", "2026-06-15", "High", "Pending", "Work"));
+        a.planner.addTask(new Task("Review", "2026-06-15", "High", "Pending", "Work"));
+        a.open();
+        Node b = new Node("b").open();
+        syncAll(a, b);
+
+        // Ship: B ticks and unticks, A ticks later. Review: A ticks, B unticks later.
+        b.wall.set(15_000);
+        b.task("Ship").setDone(true);
+        b.wall.set(16_000);
+        b.task("Ship").setDone(false);
+        a.wall.set(20_000);
+        a.task("Ship").setDone(true);
+
+        a.wall.set(30_000);
+        a.task("Review").setDone(true);
+        b.wall.set(29_000);
+        b.task("Review").setDone(true);
+        b.wall.set(35_000);
+        b.task("Review").setDone(false);
+
+        syncAll(a, b);
+        for (Node node : List.of(a, b)) {
+            assertTrue(node.task("Ship").isDone());
+            assertEquals("Done", node.task("Ship").getStatus());
+            assertEquals(false, node.task("Review").isDone());
+            assertEquals("Pending", node.task("Review").getStatus());
+        }
+    }
+
+    @Test
+    void editsOnTheSameTickSettleTheSameWayEverywhere() throws IOException {
+        Node a = new Node("a");
+        a.planner.addTask(new Task("Plan", "2026-06-15", "Medium", "Pending", "Work"));
+        a.open();
+        Node b = new Node("b").open();
+        syncAll(a, b);
+
+        a.wall.set(50_000);
+        b.wall.set(50_000);
+        a.task("Plan").setPriority("High");
+        b.task("Plan").setPriority("Low");
+        syncAll(a, b);
+        assertEquals(a.task("Plan").getPriority(), b.task("Plan").getPriority());
+    }
+
+    @Test
+    void hybridClockOrdersAnEditAfterWhatItsNodeHasSeen() throws IOException {
+        // A's clock runs hours ahead of B's.
+        Node a = new Node("a");
+        a.wall.set(10_000_000);
+        a.planner.addTask(new Task("Budget", "2026-06-15", "Medium", "Pending", "Work"));
+        a.open();
+        Node b = new Node("b").open();
+        syncAll(a, b);
+
+        a.task("Budget").setName("Budget from A");
+        syncAll(a, b);
+        // B edits after seeing A's edit. By wall clock it is hours earlier, but
+        // the hybrid clock still orders it after, so it wins everywhere.
+        b.wall.set(2_000);
+        b.task("Budget from A").setName("Budget from B");
+        syncAll(a, b);
+        assertEquals("Budget from B", a.planner.tasks().get(0).getName());
+        assertEquals("Budget from B", b.planner.tasks().get(0).getName());
+    }
+
+    @Test
+    void hybridClockNeverRunsBackwards() {
+        AtomicLong wall = new AtomicLong(5_000);
+        HybridClock clock = new HybridClock(wall::get);
+        long first = clock.now();
+        wall.set(4_000); // the machine's clock is set back
+        long second = clock.now();
+        assertTrue(second > first);
+
+        long remote = HybridClock.millis(second) + 60_000 << 16;
+        clock.observe(remote);
+        assertTrue(clock.now() > remote);
+        assertEquals(5_000, HybridClock.millis(first));
+    }
+
+    @Test
+    void aPublishedSeqIsNeverReplaced() throws IOException {
+        byte[] data = "change set".getBytes(StandardCharsets.UTF_8);
+        byte[] other = "another change set".getBytes(StandardCharsets.UTF_8);
+        for (SyncTransport transport : List.of(new InMemorySyncTransport(), new DirectorySyncTransport(dir.resolve("shared")))) {
+            transport.publish(7, 0, data);
+            transport.publish(7, 0, data.clone()); // a retry of the same bytes is fine
+            assertThrows(Exception.class, () -> transport.publish(7, 0, other), transport.getClass().getName());
+            transport.publish(7, 1, other);
+            List<SyncTransport.Batch> batches = transport.fetch(8, Map.of());
+            assertEquals(2, batches.size());
+            assertArrayEquals(data, batches.get(0).data);
+            assertArrayEquals(other, batches.get(1).data);
+            assertEquals(1, transport.fetch(8, Map.of(7L, 0L)).size());
+        }
+        assertThrows(IllegalArgumentException.class, () -> server.publish(9, 1, data), "gap");
+    }
+
+    @Test
+    void aChangeSetThatFailedToPublishGoesOutUnderItsSeqAfterARestart() throws IOException {
+        FlakyTransport flaky = new FlakyTransport(server);
+        Node a = new Node("a").open(flaky);
+        Node b = new Node("b").open();
+
+        a.planner.addTask(new Task("Invoice", "2026-06-15", "High", "Pending", "Work"));
+        flaky.failPublishes = 1;
+        assertThrows(IOException.class, a::sync);
+        a.crash();
+
+        a.open(flaky);
+        a.sync(); // republishes the saved change set as seq 0
+        a.task("Invoice").setName("Invoice #42");
+        a.sync(); // seq 1; reusing 0 would be refused
+        b.sync();
+        assertEquals(1, b.planner.tasks().size());
+        assertEquals("Invoice #42", b.planner.tasks().get(0).getName());
+
+        // A crash after a publish succeeded: the same bytes go out again and are accepted.
+        a.crash();
+        a.open(flaky);
+        a.sync();
+        a.task("Invoice #42").setDone(true);
+        a.sync();
+        b.sync();
+        assertTrue(b.planner.tasks().get(0).isDone());
+    }
+
+    @Test
+    void aRestartResumesFromTheSavedCursorsAndReplaysIdempotently() throws IOException {
+        Node a = new Node("a");
+        a.planner.addTask(new Task("Taxes", "2026-06-15", "High", "Pending", "Work"));
+        a.open();
+        FlakyTransport counting = new FlakyTransport(server);
+        Node b = new Node("b").open(counting);
+        syncAll(a, b);
+
+        // A clean restart fetches nothing it has already applied.
+        b.engine.close();
+        b.planner.removeListener(b.engine);
+        b.open(counting);
+        counting.fetched.clear();
+        b.sync();
+        assertEquals(List.of(0), counting.fetched);
+
+        // A restart from a state saved before the last fetch applies it again, to the same result.
+        Path older = dir.resolve("b.state.older");
+        Files.copy(b.state, older);
+        a.task("Taxes").setPriority("Low");
+        a.sync();
+        b.sync();
+        assertEquals("Low", b.task("Taxes").getPriority());
+        b.crash();
+        Files.copy(older, b.state, StandardCopyOption.REPLACE_EXISTING);
+        b.open(counting);
+        counting.fetched.clear();
+        b.sync();
+        assertEquals(List.of(1), counting.fetched);
+        assertEquals(1, b.planner.tasks().size());
+        assertEquals("Low", b.task("Taxes").getPriority());
+
+        // B's own later edit still wins over the replayed one.
+        b.wall.set(90_000);
+        b.task("Taxes").setPriority("Medium");
+        syncAll(a, b);
+        assertEquals("Medium", a.task("Taxes").getPriority());
+    }
+
+    // Two rounds each way are enough for every node to see every other's changes.
+    private static void syncAll(Node... nodes) throws IOException {
+        for (int round = 0; round < 2; round++) {
+            for (Node node : nodes) {
+                node.sync();
+            }
+        }
+    }
+}
@@ -0,0 +1,189 @@
+import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.SimpleBooleanProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.value.ChangeListener;
+import javafx.collections.FXCollections;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+// Table cells are reused for row after row while the table scrolls. Each one
+// must stay subscribed to exactly one task's done flag at a time.
+class TaskTableCellsTest {
+    private static final int ROWS = 40;
+
+    // A task whose done property counts the listeners of either kind attached to it.
+    private static final class CountingTask extends Task {
+        int listeners;
+        private final BooleanProperty done = new SimpleBooleanProperty() {
+            @Override
+            public void addListener(ChangeListener<? super Boolean> listener) {
+                listeners++;
+                super.addListener(listener);
+            }
+
+            @Override
+            public void removeListener(ChangeListener<? super Boolean> listener) {
+                listeners--;
+                super.removeListener(listener);
+            }
+
+            @Override
+            public void addListener(InvalidationListener listener) {
+                listeners++;
+                super.addListener(listener);
+            }
+
+            @Override
+            public void removeListener(InvalidationListener listener) {
+                listeners--;
+                super.removeListener(listener);
+            }
+        };
+
+        CountingTask(String name) {
+            super(name, "2026-06-15", "Low", "Pending");
+        }
+
+        @Override
+        public BooleanProperty doneProperty() { return done; }
+
+        @Override
+        public boolean isDone() { return done.get(); }
+    }
+
+    @BeforeAll
+    static void startToolkit() {
+        try {
+            Platform.startup(() -> { });
+        } catch (IllegalStateException alreadyStarted) {
+            // another test class started it
+        }
+    }
+
+    @Test
+    void reusedNameCellKeepsOneListener() throws Exception {
+        onFxThread(() -> {
+            List<CountingTask> tasks = tasks();
+            TableView<Task> table = new TableView<>(FXCollections.observableArrayList(tasks));
+            TableColumn<Task, String> nameCol = new TableColumn<>("Task");
+            nameCol.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().getName()));
+            table.getColumns().add(nameCol);
+
+            DailyPlannerApp.TaskNameCell cell = new DailyPlannerApp.TaskNameCell();
+            cell.updateTableView(table);
+            cell.updateTableColumn(nameCol);
+
+            // Scroll down and back up a few times, refreshing each row twice.
+            for (int pass = 0; pass < 3; pass++) {
+                for (int step = 0; step < ROWS; step++) {
+                    int row = pass % 2 == 0 ? step : ROWS - 1 - step;
+                    cell.updateIndex(row);
+                    cell.updateIndex(row);
+                    for (int i = 0; i < ROWS; i++) {
+                        assertEquals(i == row ? 1 : 0, tasks.get(i).listeners, "listeners on task " + i + " at row " + row);
+                    }
+                }
+            }
+
+            // Ticking a task the cell no longer shows must not restyle it;
+            // ticking the one it shows must.
+            int shown = cell.getIndex();
+            tasks.get((shown + 1) % ROWS).doneProperty().set(true);
+            assertEquals("", cell.getStyle());
+            tasks.get(shown).doneProperty().set(true);
+            assertNotEquals("", cell.getStyle());
+
+            // Emptying the cell lets go of its task.
+            cell.updateIndex(-1);
+            assertEquals(0, tasks.get(shown).listeners);
+        });
+    }
+
+    @Test
+    void recycledDoneCellsKeepOneBindingThroughToggles() throws Exception {
+        onFxThread(() -> {
+            List<CountingTask> tasks = tasks();
+            TableView<Task> table = new TableView<>(FXCollections.observableArrayList(tasks));
+            table.setEditable(true);
+            TableColumn<Task, Boolean> doneCol = DailyPlannerApp.createDoneColumn();
+            table.getColumns().add(doneCol);
+
+            // A screenful of cells, the way the table's flow recycles them.
+            List<TableCell<Task, Boolean>> cells = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                TableCell<Task, Boolean> cell = doneCol.getCellFactory().call(doneCol);
+                cell.updateTableView(table);
+                cell.updateTableColumn(doneCol);
+                cells.add(cell);
+            }
+
+            for (int cycle = 0; cycle < 25; cycle++) {
+                // Scroll one screen further, wrapping around, refreshing each cell twice.
+                int top = (cycle * cells.size()) % ROWS;
+                for (int i = 0; i < cells.size(); i++) {
+                    cells.get(i).updateIndex((top + i) % ROWS);
+                    cells.get(i).updateIndex((top + i) % ROWS);
+                }
+                // Tick the first row on screen through its checkbox, and untick
+                // another row behind the cells' backs.
+                CheckBox box = (CheckBox) cells.get(0).getGraphic();
+                box.fire();
+                CountingTask ticked = tasks.get(top);
+                assertEquals(box.isSelected(), ticked.isDone(), "checkbox writes through to the task");
+                CountingTask other = tasks.get((top + 1) % ROWS);
+                other.doneProperty().set(!other.isDone());
+                assertEquals(other.isDone(), ((CheckBox) cells.get(1).getGraphic()).isSelected(),
+                        "the task's change reaches its checkbox");
+
+                // A shown task carries the checkbox binding and TableCell's own
+                // watcher on its cell value (here the same doneProperty).
+                for (int i = 0; i < ROWS; i++) {
+                    boolean onScreen = (i - top + ROWS) % ROWS < cells.size();
+                    assertEquals(onScreen ? 2 : 0, tasks.get(i).listeners, "listeners on task " + i + " in cycle " + cycle);
+                }
+            }
+
+            for (TableCell<Task, Boolean> cell : cells) {
+                cell.updateIndex(-1);
+            }
+            for (CountingTask task : tasks) {
+                assertEquals(0, task.listeners, "listeners left on " + task.getName());
+            }
+        });
+    }
+
+    private static List<CountingTask> tasks() {
+        List<CountingTask> tasks = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            tasks.add(new CountingTask("Task " + i));
+        }
+        return tasks;
+    }
+
+    private static void onFxThread(Runnable body) throws Exception {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        Platform.runLater(() -> {
+            try {
+                body.run();
+                done.complete(null);
+            } catch (Throwable t) {
+                done.completeExceptionally(t);
+            }
+        });
+        done.get(10, TimeUnit.SECONDS);
+    }
+}
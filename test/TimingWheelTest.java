@@ -0,0 +1,114 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The wheel against virtual time: one tick per millisecond, so level 0 spans
+// 64 ms, level 1 4 096 ms, and anything 64^5 ticks out waits in overflow.
+class TimingWheelTest {
+    private static final long LEVEL_1 = 64;
+    private static final long LEVEL_2 = 64 * 64;
+    private static final long OVERFLOW = 1L << 30; // 64^5
+
+    private final TimingWheel<String> wheel = new TimingWheel<>(1, 0);
+    private final List<String> fired = new ArrayList<>();
+
+    @Test
+    void firesOnItsTickWithinLevelZero() {
+        wheel.schedule("a", 10);
+        wheel.schedule("b", 63);
+        advance(9);
+        assertEquals(List.of(), fired);
+        advance(10);
+        assertEquals(List.of("a"), fired);
+        advance(63);
+        assertEquals(List.of("a", "b"), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void cascadesDownFromHigherLevels() {
+        wheel.schedule("level1", LEVEL_1 + 5);
+        wheel.schedule("level2", LEVEL_2 * 3 + 17);
+        advance(LEVEL_1 + 4);
+        assertEquals(List.of(), fired);
+        advance(LEVEL_1 + 5);
+        assertEquals(List.of("level1"), fired);
+        advance(LEVEL_2 * 3 + 16);
+        assertEquals(List.of("level1"), fired);
+        advance(LEVEL_2 * 3 + 17);
+        assertEquals(List.of("level1", "level2"), fired);
+    }
+
+    @Test
+    void overflowWaitsPastTheTopLevel() {
+        wheel.schedule("far", OVERFLOW * 2 + 3);
+        assertEquals(OVERFLOW, wheel.nextWakeMillis()); // the first re-sort of the overflow list
+        advance(OVERFLOW * 2 + 2);
+        assertEquals(List.of(), fired);
+        assertEquals(1, wheel.size());
+        advance(OVERFLOW * 2 + 3);
+        assertEquals(List.of("far"), fired);
+    }
+
+    @Test
+    void firesInDeadlineOrderWhenAdvancedInOneStep() {
+        wheel.schedule("late", LEVEL_2 + 1);
+        wheel.schedule("early", 2);
+        wheel.schedule("middle", LEVEL_1 + 1);
+        advance(OVERFLOW);
+        assertEquals(List.of("early", "middle", "late"), fired);
+    }
+
+    @Test
+    void rescheduleMovesATimerBetweenLevels() {
+        TimingWheel.Timer<String> timer = wheel.schedule("moved", LEVEL_2 * 2);
+        advance(100);
+        assertTrue(wheel.reschedule(timer, 120));
+        advance(119);
+        assertEquals(List.of(), fired);
+        advance(120);
+        assertEquals(List.of("moved"), fired);
+
+        TimingWheel.Timer<String> back = wheel.schedule("pushed", 130);
+        assertTrue(wheel.reschedule(back, LEVEL_2 * 5));
+        advance(LEVEL_2 * 5 - 1);
+        assertEquals(List.of("moved"), fired);
+        advance(LEVEL_2 * 5);
+        assertEquals(List.of("moved", "pushed"), fired);
+    }
+
+    @Test
+    void cancelledTimersNeverFire() {
+        TimingWheel.Timer<String> near = wheel.schedule("near", 5);
+        TimingWheel.Timer<String> far = wheel.schedule("far", LEVEL_2 * 9);
+        TimingWheel.Timer<String> overflow = wheel.schedule("overflow", OVERFLOW + 1);
+        wheel.cancel(near);
+        wheel.cancel(far);
+        wheel.cancel(overflow);
+        assertEquals(0, wheel.size());
+        assertFalse(far.isScheduled());
+        assertEquals(Long.MAX_VALUE, wheel.nextWakeMillis());
+        advance(OVERFLOW * 2);
+        assertEquals(List.of(), fired);
+    }
+
+    @Test
+    void refusesDeadlinesThatHavePassed() {
+        advance(50);
+        assertNull(wheel.schedule("past", 50));
+        TimingWheel.Timer<String> timer = wheel.schedule("future", 60);
+        assertFalse(wheel.reschedule(timer, 40));
+        assertFalse(timer.isScheduled());
+        assertEquals(0, wheel.size());
+    }
+
+    private void advance(long toMillis) {
+        wheel.advanceTo(toMillis, fired::add);
+    }
+}